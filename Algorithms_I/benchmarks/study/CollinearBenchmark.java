@@ -0,0 +1,59 @@
+package study;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FastCollinearPoints on random points (almost no segments) and on a
+ * square lattice (the degenerate case: rows, columns and diagonals; the
+ * 40 x 40 lattice has thousands of segments).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollinearBenchmark {
+    @Param({"100", "400", "1600"})
+    public int count;
+
+    @Param({"random", "grid"})
+    public String kind;
+
+    private Point[] points;
+
+    @Setup
+    public void setup() {
+        this.points = new Point[count];
+        if (kind.equals("grid")) {
+            int side = (int) Math.ceil(Math.sqrt(count));
+            for (int i = 0; i < count; i++) {
+                this.points[i] = new Point(1000 * (i % side), 1000 * (i / side));
+            }
+        }
+        else {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < count; i++) {
+                // distinct points, x is unique
+                this.points[i] = new Point(32 * i + random.nextInt(32), random.nextInt(32768));
+            }
+        }
+    }
+
+    @Benchmark
+    public int fastCollinear() {
+        return new FastCollinearPoints(this.points).numberOfSegments();
+    }
+}
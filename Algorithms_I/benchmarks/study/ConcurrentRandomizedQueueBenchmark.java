@@ -0,0 +1,106 @@
+package study;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * threads workers each enqueue their share of a batch of items into one
+ * shared queue and dequeue as many again. One operation is the whole
+ * batch, so the time per operation against threads shows how the queue
+ * scales. The queue is either ConcurrentRandomizedQueue or a
+ * RandomizedQueue behind synchronized.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentRandomizedQueueBenchmark {
+    private static final int ITEMS = 100000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"striped", "locked"})
+    public String kind;
+
+    private Integer[] items;
+    private ConcurrentRandomizedQueue<Integer> striped;
+    private RandomizedQueue<Integer> locked;
+    private ExecutorService pool;
+    private List<Callable<Long>> workers;
+
+    @Setup
+    public void setup() {
+        this.items = new Integer[ITEMS];
+        for (int i = 0; i < ITEMS; i++) this.items[i] = i;
+        this.striped = new ConcurrentRandomizedQueue<Integer>(threads);
+        this.locked = new RandomizedQueue<Integer>();
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.workers = new ArrayList<Callable<Long>>();
+        for (int t = 0; t < threads; t++) {
+            int from = ITEMS / threads * t;
+            int to = ITEMS / threads * (t + 1);
+            this.workers.add(this.kind.equals("striped")
+                ? () -> this.stripedWork(from, to) : () -> this.lockedWork(from, to));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdownNow();
+    }
+
+    private long stripedWork(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            this.striped.enqueue(this.items[i]);
+            if (i % 2 == 1) {
+                sum += this.striped.dequeue();
+                sum += this.striped.dequeue();
+            }
+        }
+        return sum;
+    }
+
+    private long lockedWork(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            synchronized (this.locked) {
+                this.locked.enqueue(this.items[i]);
+            }
+            if (i % 2 == 1) {
+                synchronized (this.locked) {
+                    sum += this.locked.dequeue();
+                    sum += this.locked.dequeue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long batch() throws Exception {
+        long sum = 0;
+        for (Future<Long> result : this.pool.invokeAll(this.workers)) sum += result.get();
+        return sum;
+    }
+}
@@ -0,0 +1,146 @@
+package study;
+
+import java.util.LinkedList;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deque used as a queue, as a stack, with a random mix of operations at
+ * both ends, iterated, and summed by a sequential and a parallel stream
+ * over its spliterator; the queue and iteration cases also run on the
+ * node-per-item java.util.LinkedList and on the unboxed IntDeque for
+ * comparison. The bench profile runs with -prof gc, which reports the
+ * allocation rate of each case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DequeBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] items;
+    private int[] ops;
+    private Deque<Integer> full;
+    private LinkedList<Integer> fullList;
+    private IntDeque fullInts;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        this.items = new Integer[size];
+        for (int i = 0; i < size; i++) this.items[i] = i;
+        // 0, 1: add first/last, 2, 3: remove first/last, adds twice as often
+        this.ops = new int[2 * size];
+        for (int i = 0; i < this.ops.length; i++) {
+            int op = random.nextInt(6);
+            this.ops[i] = op < 4 ? op % 2 : op - 2;
+        }
+        this.full = new Deque<Integer>();
+        for (int i = 0; i < size; i++) this.full.addLast(this.items[i]);
+        this.fullList = new LinkedList<Integer>();
+        for (int i = 0; i < size; i++) this.fullList.addLast(this.items[i]);
+        this.fullInts = new IntDeque();
+        for (int i = 0; i < size; i++) this.fullInts.addLast(i);
+    }
+
+    @Benchmark
+    public long queue() {
+        Deque<Integer> deque = new Deque<Integer>();
+        for (int i = 0; i < size; i++) deque.addLast(this.items[i]);
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long linkedListQueue() {
+        LinkedList<Integer> deque = new LinkedList<Integer>();
+        for (int i = 0; i < size; i++) deque.addLast(this.items[i]);
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long intQueue() {
+        IntDeque deque = new IntDeque();
+        for (int i = 0; i < size; i++) deque.addLast(i);
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long stack() {
+        Deque<Integer> deque = new Deque<Integer>();
+        for (int i = 0; i < size; i++) deque.addFirst(this.items[i]);
+        long sum = 0;
+        while (!deque.isEmpty()) sum += deque.removeFirst();
+        return sum;
+    }
+
+    @Benchmark
+    public long mixed() {
+        Deque<Integer> deque = new Deque<Integer>();
+        long sum = 0;
+        for (int i = 0; i < this.ops.length; i++) {
+            Integer item = this.items[i % size];
+            switch (this.ops[i]) {
+                case 0: deque.addFirst(item); break;
+                case 1: deque.addLast(item); break;
+                case 2: if (!deque.isEmpty()) sum += deque.removeFirst(); break;
+                default: if (!deque.isEmpty()) sum += deque.removeLast(); break;
+            }
+        }
+        return sum + deque.size();
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Integer item : this.full) sum += item;
+        return sum;
+    }
+
+    @Benchmark
+    public long linkedListIterate() {
+        long sum = 0;
+        for (Integer item : this.fullList) sum += item;
+        return sum;
+    }
+
+    @Benchmark
+    public long intIterate() {
+        long sum = 0;
+        PrimitiveIterator.OfInt it = this.fullInts.iterator();
+        while (it.hasNext()) sum += it.nextInt();
+        return sum;
+    }
+
+    @Benchmark
+    public long streamSum() {
+        return StreamSupport.stream(this.full.spliterator(), false).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelStreamSum() {
+        return StreamSupport.stream(this.full.spliterator(), true).mapToLong(Integer::longValue).sum();
+    }
+}
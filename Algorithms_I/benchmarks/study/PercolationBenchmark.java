@@ -0,0 +1,110 @@
+package study;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling a grid until it percolates, with Percolation and FastPercolation,
+ * opening 60% of the sites one by one or as one batch, and the
+ * percolates()/isFull() queries on a half-open grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercolationBenchmark {
+    @Param({"64", "256", "1024"})
+    public int n;
+
+    private int[] rows;
+    private int[] cols;
+    private Percolation perc;
+    private FastPercolation fast;
+    private Percolation half;
+    private int query;
+
+    @Setup
+    public void setup() {
+        // one fixed random order of all sites
+        SplittableRandom random = new SplittableRandom(42);
+        this.rows = new int[n * n];
+        this.cols = new int[n * n];
+        int[] sites = new int[n * n];
+        for (int i = 0; i < sites.length; i++) {
+            int j = random.nextInt(i + 1);
+            sites[i] = sites[j];
+            sites[j] = i;
+        }
+        for (int i = 0; i < sites.length; i++) {
+            this.rows[i] = sites[i] / n + 1;
+            this.cols[i] = sites[i] % n + 1;
+        }
+        this.perc = new Percolation(n);
+        this.fast = new FastPercolation(n);
+        this.half = new Percolation(n);
+        for (int i = 0; i < sites.length / 2; i++) this.half.open(this.rows[i], this.cols[i]);
+    }
+
+    @Benchmark
+    public int openUntilPercolates() {
+        this.perc.reset();
+        int k = 0;
+        while (!this.perc.percolates()) {
+            this.perc.open(this.rows[k], this.cols[k]);
+            k++;
+        }
+        return k;
+    }
+
+    @Benchmark
+    public int fastOpenUntilPercolates() {
+        this.fast.reset();
+        int k = 0;
+        while (!this.fast.percolates()) {
+            this.fast.open(this.rows[k], this.cols[k]);
+            k++;
+        }
+        return k;
+    }
+
+    @Benchmark
+    public int openLoop() {
+        this.perc.reset();
+        int count = this.rows.length * 3 / 5;
+        for (int i = 0; i < count; i++) this.perc.open(this.rows[i], this.cols[i]);
+        return this.perc.numberOfOpenSites();
+    }
+
+    @Benchmark
+    public int openBatch() {
+        this.perc.reset();
+        this.perc.open(this.rows, this.cols, this.rows.length * 3 / 5);
+        return this.perc.numberOfOpenSites();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean percolates() {
+        return this.half.percolates();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isFull() {
+        if (++this.query == this.rows.length) this.query = 0;
+        return this.half.isFull(this.rows[this.query], this.cols[this.query]);
+    }
+}
@@ -0,0 +1,78 @@
+package study;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One PercolationStats trial on a single thread: drawing random sites and
+ * retrying while they are open, as PercolationStats does, against a lazy
+ * Fisher-Yates order over a refilled site array, plus a whole block of 32
+ * trials through the PercolationStats engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercolationStatsBenchmark {
+    @Param({"64", "256", "1024"})
+    public int n;
+
+    private Percolation perc;
+    private int[] sites;
+    private SplittableRandom random;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        this.perc = new Percolation(n);
+        this.sites = new int[n * n];
+        this.random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int rejection() {
+        // the trial loop of PercolationStats
+        this.perc.reset();
+        while (!this.perc.percolates()) {
+            int row = this.random.nextInt(n) + 1;
+            int col = this.random.nextInt(n) + 1;
+            if (!this.perc.isOpen(row, col)) this.perc.open(row, col);
+        }
+        return this.perc.numberOfOpenSites();
+    }
+
+    @Benchmark
+    public int shuffled() {
+        // a lazy Fisher-Yates order over a refilled site array, which
+        // loses to rejection near the threshold
+        this.perc.reset();
+        for (int i = 0; i < this.sites.length; i++) this.sites[i] = i;
+        for (int k = 0; !this.perc.percolates(); k++) {
+            int j = k + this.random.nextInt(this.sites.length - k);
+            int site = this.sites[j];
+            this.sites[j] = this.sites[k];
+            this.sites[k] = site;
+            this.perc.open(site / n + 1, site % n + 1);
+        }
+        return this.perc.numberOfOpenSites();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double stats() {
+        return new PercolationStats(n, 32, this.seed++, 1).mean();
+    }
+}
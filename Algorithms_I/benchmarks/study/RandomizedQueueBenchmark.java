@@ -0,0 +1,116 @@
+package study;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RandomizedQueue filled, emptied, sampled and iterated, item by item and
+ * with the batch operations, and summed by a sequential and a parallel
+ * stream over its spliterator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomizedQueueBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private static final int K = 100;
+
+    private Integer[] items;
+    private List<Integer> list;
+    private Integer[] out;
+    private RandomizedQueue<Integer> full;
+
+    @Setup
+    public void setup() {
+        this.items = new Integer[size];
+        for (int i = 0; i < size; i++) this.items[i] = i;
+        this.list = Arrays.asList(this.items);
+        this.out = new Integer[size];
+        this.full = new RandomizedQueue<Integer>();
+        for (int i = 0; i < size; i++) this.full.enqueue(this.items[i]);
+    }
+
+    @Benchmark
+    public int enqueue() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+        for (int i = 0; i < size; i++) queue.enqueue(this.items[i]);
+        return queue.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer sample() {
+        return this.full.sample();
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Integer item : this.full) sum += item;
+        return sum;
+    }
+
+    @Benchmark
+    public long enqueueDequeue() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+        for (int i = 0; i < size; i++) queue.enqueue(this.items[i]);
+        long sum = 0;
+        while (!queue.isEmpty()) sum += queue.dequeue();
+        return sum;
+    }
+
+    @Benchmark
+    public Integer enqueueDequeueBatch() {
+        RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+        queue.enqueueAll(this.list);
+        queue.dequeue(this.out, size);
+        return this.out[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer sampleBatch() {
+        // K distinct items
+        this.full.sample(this.out, K, false);
+        return this.out[0];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long iterateFirst() {
+        // the first K items of a fresh iterator
+        long sum = 0;
+        Iterator<Integer> it = this.full.iterator();
+        for (int i = 0; i < K; i++) sum += it.next();
+        return sum;
+    }
+
+    @Benchmark
+    public long streamSum() {
+        return StreamSupport.stream(this.full.spliterator(), false).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long parallelStreamSum() {
+        return StreamSupport.stream(this.full.spliterator(), true).mapToLong(Integer::longValue).sum();
+    }
+}
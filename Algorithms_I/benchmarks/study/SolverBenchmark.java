@@ -0,0 +1,52 @@
+package study;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A* Solver on a fixed corpus of 8- and 15-puzzles (random walks from the
+ * goal board; the comment gives the length of the shortest solution).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    private static final int[][][] CORPUS = {
+        // 10 moves
+        {{1, 2, 3}, {4, 5, 8}, {0, 6, 7}},
+        // 16 moves
+        {{1, 3, 6}, {4, 2, 7}, {5, 8, 0}},
+        // 30 moves
+        {{10, 12, 2, 3}, {1, 0, 7, 4}, {5, 8, 14, 15}, {9, 13, 6, 11}},
+        // 30 moves
+        {{1, 3, 0, 11}, {8, 15, 4, 7}, {2, 13, 6, 10}, {5, 9, 14, 12}},
+    };
+
+    @Param({"0", "1", "2", "3"})
+    public int board;
+
+    private Board initial;
+
+    @Setup
+    public void setup() {
+        this.initial = new Board(CORPUS[board]);
+    }
+
+    @Benchmark
+    public int solve() {
+        return new Solver(this.initial).moves();
+    }
+}
@@ -0,0 +1,73 @@
+package study;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * WeightedRandomizedQueue filled and emptied, sampled while the weights
+ * stay the same (alias table) and while they change (Fenwick tree).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedRandomizedQueueBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] items;
+    private double[] weights;
+    private WeightedRandomizedQueue<Integer> full;
+    private int[] handles;
+    private int next;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        this.items = new Integer[size];
+        this.weights = new double[size];
+        this.handles = new int[size];
+        this.full = new WeightedRandomizedQueue<Integer>();
+        for (int i = 0; i < size; i++) {
+            this.items[i] = i;
+            this.weights[i] = 1 + random.nextInt(100);
+            this.handles[i] = this.full.enqueue(this.items[i], this.weights[i]);
+        }
+    }
+
+    @Benchmark
+    public long enqueueDequeue() {
+        WeightedRandomizedQueue<Integer> queue = new WeightedRandomizedQueue<Integer>();
+        for (int i = 0; i < size; i++) queue.enqueue(this.items[i], this.weights[i]);
+        long sum = 0;
+        while (!queue.isEmpty()) sum += queue.dequeue();
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer sampleStatic() {
+        return this.full.sample();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer updateAndSample() {
+        int i = this.next++ % size;
+        this.full.updateWeight(this.handles[i], this.weights[size - 1 - i]);
+        return this.full.sample();
+    }
+}
@@ -0,0 +1,113 @@
+package study;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A batch of small tasks shared out through a deque: the owner pushes them
+ * all and then works through them from the end, while threads - 1 thieves
+ * take tasks from the front. One operation is the whole batch, so the time
+ * per operation against threads shows how the deque scales. The deque is
+ * either WorkStealingDeque or a Deque behind synchronized. Idle thieves
+ * yield, so runs with more threads than cores still make progress.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkStealingDequeBenchmark {
+    private static final int TASKS = 10000;
+    // cost of one task, in Blackhole.consumeCPU tokens
+    private static final long WORK = 50;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"stealing", "locked"})
+    public String kind;
+
+    private Integer[] items;
+    private WorkStealingDeque<Integer> stealing;
+    private Deque<Integer> locked;
+    private Thread[] thieves;
+    private volatile boolean running;
+
+    @Setup
+    public void setup() {
+        this.items = new Integer[TASKS];
+        for (int i = 0; i < TASKS; i++) this.items[i] = i;
+        this.stealing = new WorkStealingDeque<Integer>();
+        this.locked = new Deque<Integer>();
+        this.running = true;
+        this.thieves = new Thread[threads - 1];
+        for (int t = 0; t < this.thieves.length; t++) {
+            this.thieves[t] = new Thread(this.kind.equals("stealing") ? this::steal : this::take);
+            this.thieves[t].setDaemon(true);
+            this.thieves[t].start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        this.running = false;
+        for (Thread thief : this.thieves) thief.join();
+    }
+
+    private void steal() {
+        while (this.running) {
+            if (this.stealing.stealFirst() != null) Blackhole.consumeCPU(WORK);
+            else Thread.yield();
+        }
+    }
+
+    private void take() {
+        while (this.running) {
+            Integer item = null;
+            synchronized (this.locked) {
+                if (!this.locked.isEmpty()) item = this.locked.removeFirst();
+            }
+            if (item != null) Blackhole.consumeCPU(WORK);
+            else Thread.yield();
+        }
+    }
+
+    @Benchmark
+    public int batch() {
+        int done = 0;
+        if (this.kind.equals("stealing")) {
+            for (int i = 0; i < TASKS; i++) this.stealing.addLast(this.items[i]);
+            while (this.stealing.removeLast() != null) {
+                Blackhole.consumeCPU(WORK);
+                done++;
+            }
+            return done;
+        }
+        for (int i = 0; i < TASKS; i++) {
+            synchronized (this.locked) {
+                this.locked.addLast(this.items[i]);
+            }
+        }
+        while (true) {
+            synchronized (this.locked) {
+                if (this.locked.isEmpty()) return done;
+                this.locked.removeLast();
+            }
+            Blackhole.consumeCPU(WORK);
+            done++;
+        }
+    }
+}
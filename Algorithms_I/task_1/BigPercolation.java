@@ -0,0 +1,211 @@
+/******************************************************************************
+ *  Compilation:  javac BigPercolation.java
+ *  Execution:    java BigPercolation n [scratch-file]
+ *  Dependencies: none
+ *
+ *  Percolation data type for grids too big for int indices or for the heap
+ *  (n up to about 200000). Sites are numbered with longs, and the union-find
+ *  parents and the open bits live off-heap in chunks of direct buffers or,
+ *  when a scratch file is given, of buffers memory-mapped from that file.
+ *
+ *  Every word of storage starts out as zero, and zero is chosen to mean
+ *  "blocked site, root of a tree of size 1", so a new grid costs no
+ *  initialization pass at all: a parent word v <= 0 marks a root of size
+ *  1 - v, a word v > 0 points to the parent v - 1.
+ ******************************************************************************/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+public class BigPercolation implements Closeable {
+    // longs per buffer: 2^27 longs = 1 GiB, below the 2 GiB mapping limit
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final int n;
+    private final long top;
+    private final long bottom;
+    private final FileChannel channel;
+    private final LongBuffer[] parent;
+    private final LongBuffer[] opened;
+    private long openedCount;
+
+    public BigPercolation(int n) {
+        // create n-by-n grid in direct (off-heap) buffers
+        this(n, null);
+    }
+
+    public BigPercolation(int n, Path scratch) {
+        // create n-by-n grid in buffers mapped from the scratch file, which
+        // is truncated now and deleted by close(); null means direct buffers
+        if (n <= 0) throw new IllegalArgumentException("n");
+        this.n = n;
+        this.top = (long) n * n;
+        this.bottom = this.top + 1;
+        long sites = this.top + 2;
+        try {
+            if (scratch == null) {
+                this.channel = null;
+            }
+            else {
+                this.channel = FileChannel.open(scratch,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            this.parent = this.allocate(0, sites);
+            this.opened = this.allocate(sites * 8, (sites + 63) >>> 6);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LongBuffer[] allocate(long offset, long longs) throws IOException {
+        // zero-filled chunks holding the given number of longs, mapped from
+        // the scratch file starting at byte offset when there is one
+        int count = (int) ((longs + CHUNK_MASK) >>> CHUNK_SHIFT);
+        LongBuffer[] chunks = new LongBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long size = Math.min(CHUNK_MASK + 1, longs - ((long) i << CHUNK_SHIFT));
+            ByteBuffer bytes;
+            if (this.channel == null) {
+                bytes = ByteBuffer.allocateDirect((int) (size * 8));
+            }
+            else {
+                bytes = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                    offset + ((long) i << (CHUNK_SHIFT + 3)), size * 8);
+            }
+            chunks[i] = bytes.order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return chunks;
+    }
+
+    private static long get(LongBuffer[] chunks, long i) {
+        return chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK));
+    }
+
+    private static void set(LongBuffer[] chunks, long i, long value) {
+        chunks[(int) (i >>> CHUNK_SHIFT)].put((int) (i & CHUNK_MASK), value);
+    }
+
+    private long getIndex(int row, int col) {
+        if (row <= 0 || row > this.n) throw new IndexOutOfBoundsException("row");
+        if (col <= 0 || col > this.n) throw new IndexOutOfBoundsException("col");
+        return (row - 1) * (long) this.n + col - 1;
+    }
+
+    private boolean opened(long id) {
+        return (get(this.opened, id >>> 6) & (1L << id)) != 0;
+    }
+
+    private long find(long p) {
+        // root of p, halving the path on the way
+        long v = get(this.parent, p);
+        while (v > 0) {
+            long q = v - 1;
+            long w = get(this.parent, q);
+            if (w > 0) {
+                set(this.parent, p, w);
+                q = w - 1;
+                w = get(this.parent, q);
+            }
+            p = q;
+            v = w;
+        }
+        return p;
+    }
+
+    private void union(long p, long q) {
+        // union by size, the size of a root r being 1 - parent[r]
+        long a = this.find(p);
+        long b = this.find(q);
+        if (a == b) return;
+        long va = get(this.parent, a);
+        long vb = get(this.parent, b);
+        if (va > vb) {
+            long tmp = a;
+            a = b;
+            b = tmp;
+            tmp = va;
+            va = vb;
+            vb = tmp;
+        }
+        set(this.parent, a, va + vb - 1);
+        set(this.parent, b, a + 1);
+    }
+
+    public void open(int row, int col) {
+        // open site (row, col) if it is not open already
+        long id = this.getIndex(row, col);
+        if (this.opened(id)) return;
+        set(this.opened, id >>> 6, get(this.opened, id >>> 6) | (1L << id));
+        this.openedCount++;
+        if (row == 1) this.union(id, this.top);
+        if (row == this.n) this.union(id, this.bottom);
+        if (row > 1 && this.opened(id - this.n)) this.union(id, id - this.n);
+        if (row < this.n && this.opened(id + this.n)) this.union(id, id + this.n);
+        if (col > 1 && this.opened(id - 1)) this.union(id, id - 1);
+        if (col < this.n && this.opened(id + 1)) this.union(id, id + 1);
+    }
+
+    public boolean isOpen(int row, int col) {
+        // is site (row, col) open?
+        return this.opened(this.getIndex(row, col));
+    }
+
+    public boolean isFull(int row, int col) {
+        // is site (row, col) full?
+        long id = this.getIndex(row, col);
+        if (!this.opened(id)) return false;
+        return this.find(id) == this.find(this.top);
+    }
+
+    public long numberOfOpenSites() {
+        // number of open sites
+        return this.openedCount;
+    }
+
+    public boolean percolates() {
+        // does the system percolate?
+        return this.find(this.top) == this.find(this.bottom);
+    }
+
+    public int size() {
+        // grid dimension n
+        return this.n;
+    }
+
+    public void close() throws IOException {
+        // release the scratch file; direct buffers are left to the collector
+        if (this.channel != null) this.channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // open random sites until the system percolates
+        int n = Integer.parseInt(args[0]);
+        Path scratch = null;
+        if (args.length > 1) scratch = Paths.get(args[1]);
+        SplittableRandom random = new SplittableRandom();
+        long start = System.nanoTime();
+        try (BigPercolation perc = new BigPercolation(n, scratch)) {
+            while (!perc.percolates()) {
+                int row = random.nextInt(n) + 1;
+                int col = random.nextInt(n) + 1;
+                perc.open(row, col);
+            }
+            System.out.printf("open fraction = %1.16f\n",
+                perc.numberOfOpenSites() * 1.0 / ((long) n * n));
+        }
+        System.out.printf("elapsed       = %.3f s\n", (System.nanoTime() - start) / 1e9);
+    }
+}
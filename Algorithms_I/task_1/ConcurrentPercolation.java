@@ -0,0 +1,189 @@
+/******************************************************************************
+ *  Compilation:  javac ConcurrentPercolation.java
+ *  Execution:    java ConcurrentPercolation n threads
+ *  Dependencies: FastPercolation.java
+ *
+ *  Thread-safe Percolation data type: any number of threads may open sites
+ *  of the same grid at the same time, without locks.
+ *
+ *    - open bits are packed in an AtomicLongArray and set with CAS, the open
+ *      count is a LongAdder;
+ *    - the union-find is the lock-free one of Anderson and Woll (and of
+ *      Jayanti and Tarjan): a root is linked below another root by a CAS on
+ *      its parent, roots are ordered by a random priority so that trees stay
+ *      shallow, and find() splits paths with CAS;
+ *    - isFull() and percolates() use the same-set loop that only answers
+ *      "no" after seeing that one of the two roots is still a root, so they
+ *      are linearizable.
+ *
+ *  Every site sets its own bit before it looks at the bits of its
+ *  neighbors, so of two neighbors opened at the same time at least one sees
+ *  the other and joins them.
+ *
+ *  The main() client fills a grid from 1, 2, 4, ... threads and prints the
+ *  time each run takes.
+ ******************************************************************************/
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentPercolation {
+    private final int n;
+    private final int top;
+    private final int bottom;
+    private final AtomicIntegerArray parent;
+    private final int[] priority;
+    private final AtomicLongArray opened;
+    private final LongAdder openedCount;
+
+    public ConcurrentPercolation(int n) {
+        // create n-by-n grid, with all sites blocked
+        if (n <= 0) throw new IllegalArgumentException("n");
+        this.n = n;
+        this.top = n * n;
+        this.bottom = n * n + 1;
+        this.parent = new AtomicIntegerArray(n * n + 2);
+        this.priority = new int[n * n + 2];
+        SplittableRandom random = new SplittableRandom();
+        for (int i = 0; i < this.priority.length; i++) {
+            this.parent.set(i, i);
+            int j = random.nextInt(i + 1);
+            this.priority[i] = this.priority[j];
+            this.priority[j] = i;
+        }
+        this.opened = new AtomicLongArray((n * n + 63) >>> 6);
+        this.openedCount = new LongAdder();
+    }
+
+    private int getIndex(int row, int col) {
+        if (row <= 0 || row > this.n) throw new IndexOutOfBoundsException("row");
+        if (col <= 0 || col > this.n) throw new IndexOutOfBoundsException("col");
+        return (row - 1) * this.n + col - 1;
+    }
+
+    private boolean opened(int id) {
+        return (this.opened.get(id >>> 6) & (1L << id)) != 0;
+    }
+
+    private int find(int p) {
+        // root of p, splitting the path on the way
+        while (true) {
+            int q = this.parent.get(p);
+            int r = this.parent.get(q);
+            if (q == r) return q;
+            this.parent.compareAndSet(p, q, r);
+            p = q;
+        }
+    }
+
+    private void union(int p, int q) {
+        // link the root of lower priority below the other one; retry when
+        // the root changed under us
+        while (true) {
+            p = this.find(p);
+            q = this.find(q);
+            if (p == q) return;
+            if (this.priority[p] > this.priority[q]) {
+                int tmp = p;
+                p = q;
+                q = tmp;
+            }
+            if (this.parent.compareAndSet(p, p, q)) return;
+        }
+    }
+
+    private boolean connected(int p, int q) {
+        while (true) {
+            p = this.find(p);
+            q = this.find(q);
+            if (p == q) return true;
+            if (this.parent.get(p) == p) return false;
+        }
+    }
+
+    public void open(int row, int col) {
+        // open site (row, col) if it is not open already
+        int id = this.getIndex(row, col);
+        long bit = 1L << id;
+        long word;
+        do {
+            word = this.opened.get(id >>> 6);
+            if ((word & bit) != 0) return;
+        } while (!this.opened.compareAndSet(id >>> 6, word, word | bit));
+        this.openedCount.increment();
+        if (row == 1) this.union(id, this.top);
+        if (row == this.n) this.union(id, this.bottom);
+        if (row > 1 && this.opened(id - this.n)) this.union(id, id - this.n);
+        if (row < this.n && this.opened(id + this.n)) this.union(id, id + this.n);
+        if (col > 1 && this.opened(id - 1)) this.union(id, id - 1);
+        if (col < this.n && this.opened(id + 1)) this.union(id, id + 1);
+    }
+
+    public boolean isOpen(int row, int col) {
+        // is site (row, col) open?
+        return this.opened(this.getIndex(row, col));
+    }
+
+    public boolean isFull(int row, int col) {
+        // is site (row, col) full?
+        int id = this.getIndex(row, col);
+        return this.opened(id) && this.connected(id, this.top);
+    }
+
+    public int numberOfOpenSites() {
+        // number of open sites
+        return this.openedCount.intValue();
+    }
+
+    public boolean percolates() {
+        // does the system percolate?
+        return this.connected(this.top, this.bottom);
+    }
+
+    public int size() {
+        // grid dimension n
+        return this.n;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // open 60% of the sites of an n-by-n grid from 1, 2, 4, ... threads
+        int n = Integer.parseInt(args[0]);
+        int maxThreads = Integer.parseInt(args[1]);
+        SplittableRandom random = new SplittableRandom();
+        int[] sites = new int[n * n];
+        for (int i = 0; i < sites.length; i++) {
+            int j = random.nextInt(i + 1);
+            sites[i] = sites[j];
+            sites[j] = i;
+        }
+        int count = (int) (0.6 * sites.length);
+        FastPercolation check = new FastPercolation(n);
+        for (int i = 0; i < count; i++) check.open(sites[i] / n + 1, sites[i] % n + 1);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ConcurrentPercolation perc = new ConcurrentPercolation(n);
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int from = (int) ((long) count * t / threads);
+                int to = (int) ((long) count * (t + 1) / threads);
+                workers[t] = new Thread(() -> {
+                    for (int i = from; i < to; i++) {
+                        perc.open(sites[i] / n + 1, sites[i] % n + 1);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            if (perc.percolates() != check.percolates()
+                || perc.numberOfOpenSites() != check.numberOfOpenSites()) {
+                throw new IllegalStateException("differs from FastPercolation");
+            }
+            System.out.printf("%3d threads: %.3f s, %.1f Msites/s\n",
+                threads, elapsed, count / elapsed / 1e6);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/******************************************************************************
+ *  Compilation:  javac FastPercolation.java
+ *  Execution:    java FastPercolation n trials
+ *  Dependencies: Percolation.java
+ *
+ *  Same data type as Percolation, specialized for the open() hot path:
+ *
+ *    - the union-find is a flat int[] where a root stores -size and every
+ *      other site its parent, with union by size and path halving;
+ *    - the grid is padded by one site on every side. The padding row above
+ *      the grid is open and already joined to the virtual top, the one below
+ *      to the virtual bottom, the side columns stay blocked, so open() looks
+ *      at its four neighbors without any edge-case branches;
+ *    - open sites are kept in a byte[] instead of an int[].
+ *
+ *  The main() client opens the same random sites in both classes, checks
+ *  that they agree and prints the time spent by each.
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+import java.util.Arrays;
+
+public class FastPercolation {
+    private final int n;
+    private final int width;
+    private final int top;
+    private final int bottom;
+    private final int[] parent;
+    private final byte[] opened;
+    private int openedCount;
+
+    public FastPercolation(int n) {
+        // create n-by-n grid, with all sites blocked
+        if (n <= 0) throw new IllegalArgumentException("n");
+        this.n = n;
+        this.width = n + 2;
+        this.top = 0;
+        this.bottom = (n + 1) * this.width;
+        this.parent = new int[this.width * this.width];
+        this.opened = new byte[this.width * this.width];
+        this.reset();
+    }
+
+    public void reset() {
+        // block all sites again, so the same object can run another trial
+        Arrays.fill(this.parent, -1);
+        Arrays.fill(this.opened, (byte) 0);
+        for (int col = 0; col < this.width; col++) {
+            this.opened[this.top + col] = 1;
+            this.opened[this.bottom + col] = 1;
+            this.parent[this.top + col] = this.top;
+            this.parent[this.bottom + col] = this.bottom;
+        }
+        this.parent[this.top] = -this.width;
+        this.parent[this.bottom] = -this.width;
+        this.openedCount = 0;
+    }
+
+    private int getIndex(int row, int col) {
+        if (row <= 0 || row > this.n) throw new IndexOutOfBoundsException("row");
+        if (col <= 0 || col > this.n) throw new IndexOutOfBoundsException("col");
+        return row * this.width + col;
+    }
+
+    private int find(int p) {
+        // root of p, halving the path on the way
+        int[] id = this.parent;
+        while (id[p] >= 0) {
+            int q = id[p];
+            if (id[q] >= 0) id[p] = id[q];
+            p = id[p];
+        }
+        return p;
+    }
+
+    private int union(int root, int p) {
+        // join the tree of p into the tree with the given root,
+        // return the root of the result
+        int other = this.find(p);
+        if (other == root) return root;
+        if (this.parent[root] > this.parent[other]) {
+            int tmp = root;
+            root = other;
+            other = tmp;
+        }
+        this.parent[root] += this.parent[other];
+        this.parent[other] = root;
+        return root;
+    }
+
+    public void open(int row, int col) {
+        // open site (row, col) if it is not open already
+        int id = this.getIndex(row, col);
+        if (this.opened[id] != 0) return;
+        this.opened[id] = 1;
+        this.openedCount++;
+        int root = id;
+        if (this.opened[id - this.width] != 0) root = this.union(root, id - this.width);
+        if (this.opened[id + this.width] != 0) root = this.union(root, id + this.width);
+        if (this.opened[id - 1] != 0) root = this.union(root, id - 1);
+        if (this.opened[id + 1] != 0) root = this.union(root, id + 1);
+    }
+
+    public boolean isOpen(int row, int col) {
+        // is site (row, col) open?
+        return this.opened[this.getIndex(row, col)] != 0;
+    }
+
+    public boolean isFull(int row, int col) {
+        // is site (row, col) full?
+        int id = this.getIndex(row, col);
+        if (this.opened[id] == 0) return false;
+        return this.find(id) == this.find(this.top);
+    }
+
+    public int numberOfOpenSites() {
+        // number of open sites
+        return this.openedCount;
+    }
+
+    public boolean percolates() {
+        // does the system percolate?
+        return this.find(this.top) == this.find(this.bottom);
+    }
+
+    public int size() {
+        // grid dimension n
+        return this.n;
+    }
+
+    public static void main(String[] args) {
+        // compare with Percolation on trials random fillings of an n-by-n grid
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        double slow = 0.0;
+        double fast = 0.0;
+        for (int t = 0; t < trials; t++) {
+            int[] sites = StdRandom.permutation(n * n);
+
+            Stopwatch timer = new Stopwatch();
+            Percolation perc = new Percolation(n);
+            int k = 0;
+            while (!perc.percolates()) {
+                perc.open(sites[k] / n + 1, sites[k] % n + 1);
+                k++;
+            }
+            slow += timer.elapsedTime();
+
+            timer = new Stopwatch();
+            FastPercolation fperc = new FastPercolation(n);
+            int m = 0;
+            while (!fperc.percolates()) {
+                fperc.open(sites[m] / n + 1, sites[m] % n + 1);
+                m++;
+            }
+            fast += timer.elapsedTime();
+
+            if (k != m) throw new IllegalStateException("percolates() differs");
+            for (int i = 1; i <= n; i++) {
+                for (int j = 1; j <= n; j++) {
+                    if (perc.isFull(i, j) != fperc.isFull(i, j))
+                        throw new IllegalStateException("isFull() differs");
+                }
+            }
+        }
+        System.out.printf("Percolation     = %.3f s\n", slow);
+        System.out.printf("FastPercolation = %.3f s\n", fast);
+    }
+}
@@ -0,0 +1,243 @@
+/******************************************************************************
+ *  Compilation:  javac HoshenKopelman.java
+ *  Execution:    java HoshenKopelman mask-file
+ *  Dependencies: none
+ *
+ *  Labels the clusters of a static n-by-n grid of sites that is fed one row
+ *  at a time (Hoshen-Kopelman), and decides whether it percolates. Only the
+ *  labels of the previous and of the current row are kept, together with an
+ *  equivalence table for the labels of these two rows, so the working
+ *  memory is O(n) however many rows go by.
+ *
+ *  After every row the labels are renumbered 1, 2, ... again. A cluster
+ *  whose label does not reach the new row is complete and is counted then.
+ *
+ *  Mask files hold n as a big-endian int32 followed by n rows of (n + 7) / 8
+ *  bytes each; bit 7 - (col - 1) % 8 of byte (col - 1) / 8 is set when site
+ *  (row, col) is open.
+ ******************************************************************************/
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class HoshenKopelman {
+    private final int n;
+    private int rows;
+    // labels of the last row, 0 for a blocked site, and per label the size
+    // and whether the cluster touches the top row
+    private int[] labels;
+    private int labelCount;
+    private long[] labelSize;
+    private boolean[] labelTop;
+    // scratch: equivalence table over the labels of two rows
+    private final int[] parent;
+    private final long[] size;
+    private final boolean[] top;
+    private final int[] renumber;
+    private final boolean[] alive;
+    private int[] current;
+    private final boolean[] sites;
+
+    private long openedCount;
+    private long clusterCount;
+    private long largestCluster;
+    private boolean percolates;
+
+    public HoshenKopelman(int n) {
+        // prepare to read n rows of an n-by-n grid
+        if (n <= 0) throw new IllegalArgumentException("n");
+        this.n = n;
+        int ids = 2 * n + 2;
+        this.labels = new int[n];
+        this.current = new int[n];
+        this.labelSize = new long[ids];
+        this.labelTop = new boolean[ids];
+        this.parent = new int[ids];
+        this.size = new long[ids];
+        this.top = new boolean[ids];
+        this.renumber = new int[ids];
+        this.alive = new boolean[ids];
+        this.sites = new boolean[n];
+    }
+
+    private int find(int p) {
+        while (this.parent[p] != p) {
+            this.parent[p] = this.parent[this.parent[p]];
+            p = this.parent[p];
+        }
+        return p;
+    }
+
+    private int union(int p, int q) {
+        // merge the classes of p and q, return the representative
+        int a = this.find(p);
+        int b = this.find(q);
+        if (a == b) return a;
+        if (this.size[a] < this.size[b]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        this.parent[b] = a;
+        this.size[a] += this.size[b];
+        this.top[a] = this.top[a] || this.top[b];
+        return a;
+    }
+
+    public void addRow(boolean[] open) {
+        // label the next row; open[col - 1] tells whether site (row, col) is open
+        if (open.length != this.n) throw new IllegalArgumentException("row length");
+        if (this.rows == this.n) throw new IllegalStateException("all rows read");
+        boolean first = this.rows == 0;
+        // ids 1..labelCount are the labels of the previous row
+        int next = this.labelCount;
+        for (int id = 1; id <= this.labelCount; id++) {
+            this.parent[id] = id;
+            this.size[id] = this.labelSize[id];
+            this.top[id] = this.labelTop[id];
+        }
+        for (int col = 0; col < this.n; col++) {
+            if (!open[col]) {
+                this.current[col] = 0;
+                continue;
+            }
+            this.openedCount++;
+            int up = this.labels[col];
+            int left = col > 0 ? this.current[col - 1] : 0;
+            int id;
+            if (up == 0 && left == 0) {
+                id = ++next;
+                this.parent[id] = id;
+                this.size[id] = 0;
+                this.top[id] = first;
+            }
+            else if (up == 0) id = left;
+            else if (left == 0) id = up;
+            else id = this.union(up, left);
+            this.size[this.find(id)]++;
+            this.current[col] = id;
+        }
+
+        // clusters of the previous row that do not reach this one are done
+        Arrays.fill(this.alive, 1, next + 1, false);
+        for (int col = 0; col < this.n; col++) {
+            if (this.current[col] != 0) this.alive[this.find(this.current[col])] = true;
+        }
+        for (int id = 1; id <= this.labelCount; id++) {
+            int root = this.find(id);
+            if (!this.alive[root]) {
+                this.alive[root] = true;
+                this.finish(this.size[root]);
+            }
+        }
+
+        // renumber the roots reaching this row as 1, 2, ...
+        Arrays.fill(this.renumber, 1, next + 1, 0);
+        int count = 0;
+        for (int col = 0; col < this.n; col++) {
+            if (this.current[col] == 0) continue;
+            int root = this.find(this.current[col]);
+            if (this.renumber[root] == 0) {
+                this.renumber[root] = ++count;
+                this.labelSize[count] = this.size[root];
+                this.labelTop[count] = this.top[root];
+            }
+            this.current[col] = this.renumber[root];
+        }
+        int[] tmp = this.labels;
+        this.labels = this.current;
+        this.current = tmp;
+        this.labelCount = count;
+        this.rows++;
+
+        if (this.rows == this.n) {
+            for (int label = 1; label <= count; label++) {
+                if (this.labelTop[label]) this.percolates = true;
+                this.finish(this.labelSize[label]);
+            }
+        }
+    }
+
+    public void addRow(byte[] packed) {
+        // label the next row given as (n + 7) / 8 bytes, see the header
+        if (packed.length < (this.n + 7) / 8) throw new IllegalArgumentException("row length");
+        for (int col = 0; col < this.n; col++) {
+            this.sites[col] = (packed[col >>> 3] & (0x80 >>> (col & 7))) != 0;
+        }
+        this.addRow(this.sites);
+    }
+
+    private void finish(long clusterSize) {
+        this.clusterCount++;
+        this.largestCluster = Math.max(this.largestCluster, clusterSize);
+    }
+
+    private void checkComplete() {
+        if (this.rows < this.n) throw new IllegalStateException("only " + this.rows + " rows read");
+    }
+
+    public int[] labels() {
+        // labels of the last row read, 0 for blocked sites; equal labels
+        // mean the same cluster within this row only, as labels are
+        // renumbered after every row
+        return this.labels.clone();
+    }
+
+    public int rowsRead() {
+        // number of rows labeled so far
+        return this.rows;
+    }
+
+    public long numberOfOpenSites() {
+        // number of open sites in the rows read so far
+        return this.openedCount;
+    }
+
+    public boolean percolates() {
+        // does the system percolate?
+        this.checkComplete();
+        return this.percolates;
+    }
+
+    public long numberOfClusters() {
+        // number of clusters of open sites
+        this.checkComplete();
+        return this.clusterCount;
+    }
+
+    public long largestCluster() {
+        // number of sites in the largest cluster
+        this.checkComplete();
+        return this.largestCluster;
+    }
+
+    public static HoshenKopelman read(String file) throws IOException {
+        // label the grid of a mask file, streaming it row by row
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            int n = in.readInt();
+            HoshenKopelman hk = new HoshenKopelman(n);
+            byte[] row = new byte[(n + 7) / 8];
+            for (int i = 0; i < n; i++) {
+                in.readFully(row);
+                hk.addRow(row);
+            }
+            return hk;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        HoshenKopelman hk = read(args[0]);
+        System.out.println("open sites      = " + hk.numberOfOpenSites());
+        System.out.println("clusters        = " + hk.numberOfClusters());
+        System.out.println("largest cluster = " + hk.largestCluster());
+        System.out.println(hk.percolates() ? "percolates" : "does not percolate");
+    }
+}
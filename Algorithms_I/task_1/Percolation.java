@@ -1,10 +1,26 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.util.Arrays;
 
 public class Percolation {
+    private static final int TOP = 1;
+    private static final int BOTTOM = 2;
+    // opened[] mark of the sites a batch open() is adding, and the part
+    // of the grid a batch has to reach before it is joined in one sweep
+    private static final int NEW = 2;
+    private static final int SWEEP = 16;
     private int n;
-    private WeightedQuickUnionUF grid;
     private int[] opened;
     private int openedCount;
+    // weighted quick-union of the open sites, the only one: -size for a
+    // root, the parent otherwise. reach[root] has the TOP and BOTTOM bits
+    // of the rows its cluster touches, which answers isFull() and
+    // percolates() without virtual sites (and so without backwash)
+    private int[] cluster;
+    private byte[] reach;
+    private boolean percolates;
+    private int clusterCount;
+    private int largestCluster;
+    private long squaredSizes;
+    private int topClusterSize;
     
     private int getIndex(int i, int j) {
         if (i <= 0 || i > this.n) throw new IndexOutOfBoundsException("row");
@@ -15,9 +31,83 @@ public class Percolation {
     public Percolation(int n) {
         // create n-by-n grid, with all sites blocked
         this.n = n;
-        this.grid = new WeightedQuickUnionUF(n * n + 2);
         this.opened = new int[n * n];
         this.openedCount = 0;
+        this.cluster = new int[n * n];
+        this.reach = new byte[n * n];
+        this.resetClusters();
+    }
+    
+    public int size() {
+        // grid dimension n
+        return this.n;
+    }
+    
+    public void reset() {
+        // block all sites again, so the same object can run another trial
+        Arrays.fill(this.opened, 0);
+        this.openedCount = 0;
+        this.resetClusters();
+    }
+    
+    private void resetClusters() {
+        Arrays.fill(this.cluster, -1);
+        Arrays.fill(this.reach, (byte) 0);
+        this.percolates = false;
+        this.clusterCount = 0;
+        this.largestCluster = 0;
+        this.squaredSizes = 0;
+        this.topClusterSize = 0;
+    }
+    
+    private int findCluster(int p) {
+        // root of the cluster of p with path halving
+        while (this.cluster[p] >= 0) {
+            if (this.cluster[this.cluster[p]] >= 0) {
+                this.cluster[p] = this.cluster[this.cluster[p]];
+            }
+            p = this.cluster[p];
+        }
+        return p;
+    }
+    
+    private void addSite(int id, int row) {
+        // new open site is a cluster of its own
+        this.clusterCount++;
+        this.squaredSizes++;
+        if (this.largestCluster == 0) this.largestCluster = 1;
+        int r = 0;
+        if (row == 1) {
+            r = TOP;
+            this.topClusterSize++;
+        }
+        if (row == this.n) r |= BOTTOM;
+        this.reach[id] = (byte) r;
+        if (r == (TOP | BOTTOM)) this.percolates = true;
+    }
+    
+    private void connect(int id, int other) {
+        // union of two open sites, keeping the cluster statistics up to date
+        int a = this.findCluster(id);
+        int b = this.findCluster(other);
+        if (a == b) return;
+        int sa = -this.cluster[a];
+        int sb = -this.cluster[b];
+        int ra = this.reach[a];
+        int rb = this.reach[b];
+        if (((ra ^ rb) & TOP) != 0) this.topClusterSize += (ra & TOP) != 0 ? sb : sa;
+        if (sa < sb) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        this.cluster[a] = -(sa + sb);
+        this.cluster[b] = a;
+        this.reach[a] = (byte) (ra | rb);
+        if ((ra | rb) == (TOP | BOTTOM)) this.percolates = true;
+        this.clusterCount--;
+        this.squaredSizes += 2L * sa * sb;
+        this.largestCluster = Math.max(this.largestCluster, sa + sb);
     }
     
     public void open(int row, int col) {
@@ -29,70 +119,131 @@ public class Percolation {
         if (this.opened[id] == 0) {
             this.opened[id] = 1;
             this.openedCount += 1;
+            this.addSite(id, row);
             if (this.n < 2) return;
             if (row == 1) {
                 if (this.isOpen(row + 1, col)) {
                     id_temp = this.getIndex(row + 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
+                }
+                if (col > 1 && this.isOpen(row, col - 1)) {
+                    this.connect(id, id - 1);
+                }
+                if (col < this.n && this.isOpen(row, col + 1)) {
+                    this.connect(id, id + 1);
                 }
-                this.grid.union(id, this.n * this.n);
             }
             else if (row == this.n) {
                 if (this.isOpen(row - 1, col)) {
                     id_temp = this.getIndex(row - 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
+                }
+                if (col > 1 && this.isOpen(row, col - 1)) {
+                    this.connect(id, id - 1);
+                }
+                if (col < this.n && this.isOpen(row, col + 1)) {
+                    this.connect(id, id + 1);
                 }
-                this.grid.union(id, this.n * this.n + 1);
             }
             else if (col == 1) {
                 if (this.isOpen(row, col + 1)) {
                     id_temp = this.getIndex(row, col + 1);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row - 1, col)) {
                     id_temp = this.getIndex(row - 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row + 1, col)) {
                     id_temp = this.getIndex(row + 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }                      
             }
             else if (col == this.n) {
                 if (this.isOpen(row, col - 1)) {
                     id_temp = this.getIndex(row, col - 1);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row - 1, col)) {
                     id_temp = this.getIndex(row - 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row + 1, col)) {
                     id_temp = this.getIndex(row + 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }                      
             }
             else {
                 if (this.isOpen(row, col - 1)) {
                     id_temp = this.getIndex(row, col - 1);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row, col + 1)) {
                     id_temp = this.getIndex(row, col + 1);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row - 1, col)) {
                     id_temp = this.getIndex(row - 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }
                 if (this.isOpen(row + 1, col)) {
                     id_temp = this.getIndex(row + 1, col);
-                    this.grid.union(id, id_temp);
+                    this.connect(id, id_temp);
                 }                
             }
         }
     }
     
+    public void open(int[] rows, int[] cols) {
+        // open all sites (rows[i], cols[i])
+        this.open(rows, cols, rows.length);
+    }
+    
+    public void open(int[] rows, int[] cols, int count) {
+        // open sites (rows[i], cols[i]) for i < count: the whole batch is
+        // checked first, then the new sites are marked, then joined to
+        // their open neighbors. A big batch is joined in one sweep over the
+        // grid in index order, so the union-find works on memory it has just
+        // touched; a small one site by site. Either way a pair of new
+        // neighbors is joined once, from its higher site
+        if (count < 0 || count > rows.length || count > cols.length) {
+            throw new IllegalArgumentException("count");
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = this.getIndex(rows[i], cols[i]);
+        
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            if (this.opened[id] == 0) {
+                this.opened[id] = NEW;
+                ids[added++] = id;
+            }
+        }
+        this.openedCount += added;
+        int size = this.n * this.n;
+        if (added < size / SWEEP) {
+            for (int i = 0; i < added; i++) this.join(ids[i]);
+            return;
+        }
+        for (int id = 0; id < size; id++) {
+            if (this.opened[id] == NEW) this.join(id);
+        }
+    }
+    
+    private void join(int id) {
+        // add new site id of a batch and join it to its open neighbors;
+        // new sites further down the grid or right of it join it later
+        this.opened[id] = 1;
+        this.addSite(id, id / this.n + 1);
+        int size = this.n * this.n;
+        int col = id % this.n;
+        if (id >= this.n && this.opened[id - this.n] == 1) this.connect(id, id - this.n);
+        if (col > 0 && this.opened[id - 1] == 1) this.connect(id, id - 1);
+        if (id < size - this.n && this.opened[id + this.n] == 1) this.connect(id, id + this.n);
+        if (col < this.n - 1 && this.opened[id + 1] == 1) this.connect(id, id + 1);
+    }
+    
     public boolean isOpen(int row, int col) {
         // is site (row, col) open?
         return (this.opened[this.getIndex(row, col)] == 1);
@@ -104,7 +255,7 @@ public class Percolation {
         int id;
         if (this.isOpen(row, col) == false) return false;
         id = this.getIndex(row, col);
-        return this.grid.connected(id, this.n * this.n);
+        return (this.reach[this.findCluster(id)] & TOP) != 0;
     }
     
     public int numberOfOpenSites() {
@@ -115,10 +266,30 @@ public class Percolation {
     public boolean percolates() {
         // does the system percolate?
         // are any site in top union withsite in bottom?
-        return this.grid.connected(this.n * this.n + 1, this.n * this.n);
+        return this.percolates;
     }
         
+    public int numberOfClusters() {
+        // number of clusters of open sites
+        return this.clusterCount;
+    }
+    
+    public int largestCluster() {
+        // number of sites in the largest cluster
+        return this.largestCluster;
+    }
+    
+    public long sumOfSquaredClusterSizes() {
+        // sum over all clusters of size^2
+        return this.squaredSizes;
+    }
+    
+    public int topClusterSize() {
+        // number of open sites in clusters that touch the top row
+        return this.topClusterSize;
+    }
+    
     public static void main(String[] args) {
         // test client (optional)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+/******************************************************************************
+ *  Compilation:  javac PercolationRenderer.java
+ *  Execution:    java PercolationRenderer input.txt [cell] [frames-dir every]
+ *  Dependencies: Percolation.java
+ *
+ *  Incremental counterpart of PercolationVisualizer. The grid is drawn into
+ *  a BufferedImage with cell-by-cell pixels, and after every open() only the
+ *  cells whose state changed are recolored: the opened site itself and, if
+ *  it is full, the sites of its cluster that just became full (found by a
+ *  flood fill that stops at sites already drawn full, so every site is
+ *  flooded at most once per replay). Colors are the ones of the visualizer.
+ *
+ *  A site is shown full when its cluster reaches the top, as in isFull().
+ *
+ *  Without a frames directory the image is shown in a window that is
+ *  repainted FPS times per second while the replay runs at full speed.
+ *  With one, no display is needed: every "every" sites a PNG frame is
+ *  written to frames-dir/frame-000000.png, frame-000001.png, ...
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.In;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+public class PercolationRenderer {
+    private static final int BLACK = 0x000000;
+    private static final int WHITE = 0xffffff;
+    private static final int BOOK_LIGHT_BLUE = 0x67c6f3;
+    private static final byte BLOCKED = 0;
+    private static final byte OPEN = 1;
+    private static final byte FULL = 2;
+    // window refresh rate
+    private static final int FPS = 30;
+
+    private final Percolation perc;
+    private final int n;
+    private final int cell;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final byte[] state;
+    private final int[] stack;
+
+    public PercolationRenderer(Percolation perc, int n, int cell) {
+        // draw the current state of perc, cell pixels per site
+        if (cell <= 0) throw new IllegalArgumentException("cell");
+        this.perc = perc;
+        this.n = n;
+        this.cell = cell;
+        this.image = new BufferedImage(n * cell, n * cell, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+        this.state = new byte[n * n];
+        this.stack = new int[n * n];
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                int id = (row - 1) * n + col - 1;
+                if (perc.isOpen(row, col)) this.state[id] = OPEN;
+                this.paint(id);
+            }
+        }
+        // full sites are the ones reached from the top row, as in open()
+        int size = 0;
+        for (int id = 0; id < n; id++) size = this.push(id, size);
+        this.flood(size);
+    }
+
+    private void paint(int id) {
+        // fill the square of site id, leaving a black border when there is room
+        int color = BLACK;
+        if (this.state[id] == OPEN) color = WHITE;
+        else if (this.state[id] == FULL) color = BOOK_LIGHT_BLUE;
+        int border = this.cell > 2 ? 1 : 0;
+        int width = this.n * this.cell;
+        int x0 = (id % this.n) * this.cell;
+        int y0 = (id / this.n) * this.cell;
+        for (int y = y0 + border; y < y0 + this.cell - border; y++) {
+            int offset = y * width;
+            for (int x = x0 + border; x < x0 + this.cell - border; x++) {
+                this.pixels[offset + x] = color;
+            }
+        }
+    }
+
+    public void open(int row, int col) {
+        // open site (row, col) and recolor the sites that changed
+        this.perc.open(row, col);
+        int id = (row - 1) * this.n + col - 1;
+        if (this.state[id] != BLOCKED) return;
+        boolean full = row == 1;
+        if (!full) {
+            // full when an open neighbor is full already
+            full = row > 1 && this.state[id - this.n] == FULL
+                || row < this.n && this.state[id + this.n] == FULL
+                || col > 1 && this.state[id - 1] == FULL
+                || col < this.n && this.state[id + 1] == FULL;
+        }
+        if (!full) {
+            this.state[id] = OPEN;
+            this.paint(id);
+            return;
+        }
+        this.state[id] = FULL;
+        this.stack[0] = id;
+        this.flood(1);
+    }
+
+    private void flood(int size) {
+        // paint the sites on the stack full and flood from them into the
+        // open sites that are not drawn full yet
+        while (size > 0) {
+            int site = this.stack[--size];
+            this.paint(site);
+            int r = site / this.n;
+            int c = site % this.n;
+            if (r > 0) size = this.push(site - this.n, size);
+            if (r < this.n - 1) size = this.push(site + this.n, size);
+            if (c > 0) size = this.push(site - 1, size);
+            if (c < this.n - 1) size = this.push(site + 1, size);
+        }
+    }
+
+    private int push(int site, int size) {
+        if (this.state[site] != OPEN) return size;
+        this.state[site] = FULL;
+        this.stack[size] = site;
+        return size + 1;
+    }
+
+    public BufferedImage image() {
+        // the pixels of the grid, updated in place by open()
+        return this.image;
+    }
+
+    public void writePng(File file) throws IOException {
+        // save the current picture
+        ImageIO.write(this.image, "png", file);
+    }
+
+    public static void main(String[] args) throws Exception {
+        In in = new In(args[0]);      // input file
+        int n = in.readInt();         // n-by-n percolation system
+        int cell = Math.max(1, 512 / n);
+        if (args.length > 1) cell = Integer.parseInt(args[1]);
+        PercolationRenderer renderer = new PercolationRenderer(new Percolation(n), n, cell);
+
+        if (args.length > 3) {
+            // headless replay: a PNG frame every "every" sites
+            File dir = new File(args[2]);
+            int every = Integer.parseInt(args[3]);
+            dir.mkdirs();
+            int frame = 0;
+            int sites = 0;
+            renderer.writePng(new File(dir, String.format("frame-%06d.png", frame++)));
+            while (!in.isEmpty()) {
+                renderer.open(in.readInt(), in.readInt());
+                if (++sites % every == 0) {
+                    renderer.writePng(new File(dir, String.format("frame-%06d.png", frame++)));
+                }
+            }
+            if (sites % every != 0) {
+                renderer.writePng(new File(dir, String.format("frame-%06d.png", frame++)));
+            }
+            return;
+        }
+
+        // the replay runs on this thread, a timer repaints the window at
+        // FPS frames per second
+        AtomicInteger opened = new AtomicInteger();
+        AtomicBoolean percolates = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> {
+            JFrame window = new JFrame();
+            JLabel label = new JLabel(new ImageIcon(renderer.image()));
+            Timer timer = new Timer(1000 / FPS, e -> {
+                window.setTitle(opened.get() + " open sites, "
+                    + (percolates.get() ? "percolates" : "does not percolate"));
+                label.repaint();
+            });
+            window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            window.add(label);
+            window.pack();
+            window.setVisible(true);
+            timer.start();
+        });
+        Percolation perc = renderer.perc;
+        while (!in.isEmpty()) {
+            renderer.open(in.readInt(), in.readInt());
+            opened.set(perc.numberOfOpenSites());
+            percolates.set(perc.percolates());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/******************************************************************************
+ *  Compilation:  javac PercolationReplay.java
+ *  Execution:    java PercolationReplay input [batch]
+ *                java PercolationReplay -convert input.txt output.bin
+ *  Dependencies: Percolation.java
+ *
+ *  Reads percolation input files through memory-mapped windows of at most
+ *  WINDOW bytes, so files of any size are read without copying them
+ *  through the heap, and feeds the sites into a Percolation in batches
+ *  with its bulk open().
+ *
+ *  Two formats are understood:
+ *
+ *    - the text format of PercolationVisualizer: n, then row col pairs;
+ *    - a packed binary format: the int32 MAGIC ("PERC") and the int32 n,
+ *      then int32 row, col pairs, all big-endian. The header is optional;
+ *      without it n has to be passed to the constructor.
+ *
+ *  The main() client replays a file and prints how many sites per second
+ *  it processed; -convert writes a text file in the binary format.
+ ******************************************************************************/
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class PercolationReplay implements Closeable {
+    public static final int MAGIC = 0x50455243;
+    // bytes mapped at a time, a multiple of 8 so no pair crosses two windows
+    private static final long WINDOW = 1L << 28;
+    private static final int END = Integer.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final long length;
+    private final boolean binary;
+    private final int n;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long sites;
+    private long nanos;
+
+    public PercolationReplay(String file) throws IOException {
+        // open a text file or a binary file with header
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.length = this.channel.size();
+        this.map(0);
+        if (this.window.remaining() >= 8 && this.window.getInt(0) == MAGIC) {
+            this.binary = true;
+            this.window.position(4);
+            this.n = this.window.getInt();
+            this.map(8);
+        }
+        else {
+            this.binary = false;
+            this.n = this.readText();
+            if (this.n == END) throw new IllegalArgumentException("empty input");
+        }
+    }
+
+    public PercolationReplay(String file, int n) throws IOException {
+        // open a binary file without header, of an n-by-n grid
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.length = this.channel.size();
+        this.binary = true;
+        this.n = n;
+        this.map(0);
+    }
+
+    private boolean map(long position) throws IOException {
+        // map the window starting at position, false at the end of the file
+        if (this.window != null && position >= this.length) return false;
+        long size = Math.min(WINDOW, this.length - position);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        this.windowStart = position;
+        return size > 0;
+    }
+
+    private boolean next() throws IOException {
+        // make sure there is a byte to read, false at the end of the file
+        if (this.window.hasRemaining()) return true;
+        return this.map(this.windowStart + this.window.limit());
+    }
+
+    private int readText() throws IOException {
+        // next decimal integer, END at the end of the file
+        byte b = ' ';
+        while (this.next()) {
+            b = this.window.get();
+            if (b > ' ') break;
+        }
+        if (b <= ' ') return END;
+        boolean negative = b == '-';
+        if (negative) b = '0';
+        int value = 0;
+        while (true) {
+            if (b < '0' || b > '9') throw new IllegalArgumentException("not a number");
+            value = 10 * value + b - '0';
+            if (!this.next()) break;
+            b = this.window.get();
+            if (b <= ' ') break;
+        }
+        return negative ? -value : value;
+    }
+
+    public int size() {
+        // grid dimension n
+        return this.n;
+    }
+
+    public int read(int[] rows, int[] cols) throws IOException {
+        // read up to rows.length sites, return how many, 0 at the end
+        int count = 0;
+        if (this.binary) {
+            while (count < rows.length && this.next()) {
+                if (this.window.remaining() < 8) throw new IllegalArgumentException("truncated pair");
+                rows[count] = this.window.getInt();
+                cols[count] = this.window.getInt();
+                count++;
+            }
+            return count;
+        }
+        while (count < rows.length) {
+            int row = this.readText();
+            if (row == END) break;
+            int col = this.readText();
+            if (col == END) throw new IllegalArgumentException("odd number of integers");
+            rows[count] = row;
+            cols[count] = col;
+            count++;
+        }
+        return count;
+    }
+
+    public long replay(Percolation perc, int batch) throws IOException {
+        // open all remaining sites of the file in perc, batch sites at a time;
+        // return the number of sites
+        int[] rows = new int[batch];
+        int[] cols = new int[batch];
+        long start = System.nanoTime();
+        long total = 0;
+        int count;
+        while ((count = this.read(rows, cols)) > 0) {
+            perc.open(rows, cols, count);
+            total += count;
+        }
+        this.nanos += System.nanoTime() - start;
+        this.sites += total;
+        return total;
+    }
+
+    public double sitesPerSecond() {
+        // throughput of the replays so far, reading and opening included
+        return this.sites / (this.nanos / 1e9);
+    }
+
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    public static void convert(String text, String binary) throws IOException {
+        // write the text input file as a binary file with header
+        PercolationReplay in = new PercolationReplay(text);
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(binary), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(in.size());
+            int[] rows = new int[1 << 16];
+            int[] cols = new int[1 << 16];
+            int count;
+            while ((count = in.read(rows, cols)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(rows[i]);
+                    out.writeInt(cols[i]);
+                }
+            }
+        }
+        finally {
+            out.close();
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args[0].equals("-convert")) {
+            convert(args[1], args[2]);
+            return;
+        }
+        int batch = 1 << 16;
+        if (args.length > 1) batch = Integer.parseInt(args[1]);
+        PercolationReplay replay = new PercolationReplay(args[0]);
+        try {
+            Percolation perc = new Percolation(replay.size());
+            long sites = replay.replay(perc, batch);
+            System.out.printf("sites     = %d\n", sites);
+            System.out.printf("sites/s   = %.0f\n", replay.sitesPerSecond());
+            System.out.println(perc.percolates() ? "percolates" : "does not percolate");
+        }
+        finally {
+            replay.close();
+        }
+    }
+}
@@ -1,65 +1,362 @@
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PercolationStats {
-    
-    private double[] fractions;
+
+    // odd constant used to space out the per-trial seeds (same as SplittableRandom)
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // trials folded together before the partial results are merged
+    private static final int BLOCK = 32;
+    // trials run before the time budget is looked at
+    private static final int MIN_TRIALS = 2;
+    // checkpoint file: header (magic, n, trials, seed), then one record
+    // (block, count, mean, m2) per block merged into the total, in order
+    private static final int MAGIC = 0x50435354;
+    private static final int HEADER = 20;
+    private static final int RECORD = 24;
+    // longest time between two syncs of the checkpoint file to disk
+    private static final long SYNC_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Accumulator total = new Accumulator();
     private int n;
     private int trials;
-    
+    // blocks to run, trials per block bounded by limit, stopping rule
+    private int blocks;
+    private int limit;
+    private double target;
+    private long start;
+    private long budget;
+    // blocks finished out of order, waiting to be merged into total
+    private final HashMap<Integer, Accumulator> pending = new HashMap<Integer, Accumulator>();
+    private int merged;
+    private volatile boolean done;
+    private FileChannel checkpoint;
+    private long synced;
+
     public PercolationStats(int n, int trials) {
     // perform trials independent experiments on an n-by-n grid
+        this(n, trials, StdRandom.uniform(Integer.MAX_VALUE), 1);
+    }
+
+    public PercolationStats(int n, int trials, long seed, int threads) {
+    // perform trials independent experiments on an n-by-n grid using
+    // threads workers; the result depends only on seed, not on threads
         if (n <= 0 || trials <= 0) throw new IllegalArgumentException("War");
-        Percolation[] percs;
-        percs = new Percolation[trials];
-        for (int i = 0; i < trials; i++) {
-            percs[i] = new Percolation(n);
+        this.run(n, trials, 0.0, Long.MAX_VALUE, seed, threads);
+    }
+
+    public PercolationStats(int n, int trials, long seed, int threads,
+                            Path checkpoint) {
+    // same as above, appending every finished block to the checkpoint file;
+    // when the file holds blocks of an earlier run with the same n, trials
+    // and seed, those are not run again and the result is the same as if
+    // the earlier run had not been interrupted
+        if (n <= 0 || trials <= 0) throw new IllegalArgumentException("War");
+        try {
+            this.resume(checkpoint, n, trials, seed);
+            this.run(n, trials, 0.0, Long.MAX_VALUE, seed, threads);
+            this.checkpoint.force(false);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            try {
+                if (this.checkpoint != null) this.checkpoint.close();
+            }
+            catch (IOException e) {
+                // results are complete, a failed close changes nothing
+            }
+        }
+    }
+
+    public PercolationStats(int n, double halfWidth, long millis, long seed,
+                            int threads) {
+    // perform experiments on an n-by-n grid until the 95% confidence
+    // interval is no wider than mean +- halfWidth or millis have passed;
+    // unless time runs out the result depends only on seed
+        if (n <= 0 || !(halfWidth > 0.0) || millis <= 0) {
+            throw new IllegalArgumentException("War");
+        }
+        this.run(n, Integer.MAX_VALUE, halfWidth,
+            TimeUnit.MILLISECONDS.toNanos(millis), seed, threads);
+    }
+
+    private void run(int n, int trials, double halfWidth, long nanos, long seed,
+                     int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("threads");
+        this.n = n;
+        this.blocks = (trials - 1) / BLOCK + 1;
+        this.limit = trials;
+        this.target = halfWidth;
+        this.budget = nanos;
+        this.start = System.nanoTime();
+        this.synced = this.start;
+        this.done = this.merged == this.blocks;
+        AtomicInteger next = new AtomicInteger(this.merged);
+        if (threads == 1) {
+            this.work(next, seed);
+        }
+        else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ForkJoinTask<?>[] workers = new ForkJoinTask<?>[threads];
+                for (int w = 0; w < threads; w++) {
+                    workers[w] = pool.submit(() -> this.work(next, seed));
+                }
+                for (ForkJoinTask<?> worker : workers) worker.join();
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+        this.trials = (int) this.total.count;
+        this.pending.clear();
+    }
+
+    private void work(AtomicInteger next, long seed) {
+    // claim and run blocks until enough are done; one grid per worker,
+    // reused for all its trials
+        Percolation perc = new Percolation(this.n);
+        while (!this.done) {
+            int b = next.getAndIncrement();
+            if (b >= this.blocks || b > 0 && this.expired()) return;
+            this.complete(b, this.block(perc, seed, b));
+        }
+    }
+
+    private synchronized void complete(int b, Accumulator acc) {
+    // merge finished blocks in block order, so neither the rounding nor the
+    // point where the run stops depend on the number of threads
+        if (this.done) return;
+        this.pending.put(b, acc);
+        Accumulator a;
+        while ((a = this.pending.remove(this.merged)) != null) {
+            this.total.merge(a);
+            this.save(a);
+            this.merged++;
+            if (this.merged == this.blocks
+                || this.target > 0.0 && this.total.count > 1
+                   && this.halfWidth() <= this.target
+                || this.expired()) {
+                this.done = true;
+                return;
+            }
+        }
+    }
+
+    private void resume(Path file, int n, int trials, long seed)
+        throws IOException {
+    // open the checkpoint file, merge the blocks it already holds and drop
+    // a record that was cut short by a crash
+        this.checkpoint = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (this.checkpoint.size() < HEADER) {
+            header.putInt(MAGIC).putInt(n).putInt(trials).putLong(seed);
+            header.flip();
+            this.checkpoint.truncate(0);
+            this.checkpoint.write(header, 0);
+        }
+        else {
+            read(this.checkpoint, header, 0);
+            if (header.getInt() != MAGIC || header.getInt() != n
+                || header.getInt() != trials || header.getLong() != seed) {
+                throw new IllegalArgumentException("checkpoint of another run");
+            }
+        }
+        long records = (this.checkpoint.size() - HEADER) / RECORD;
+        ByteBuffer record = ByteBuffer.allocate(RECORD);
+        for (int b = 0; b < records; b++) {
+            record.clear();
+            read(this.checkpoint, record, HEADER + (long) b * RECORD);
+            if (record.getInt() != b) throw new IllegalArgumentException("checkpoint");
+            Accumulator a = new Accumulator();
+            a.count = record.getInt();
+            a.mean = record.getDouble();
+            a.m2 = record.getDouble();
+            this.total.merge(a);
+            this.merged++;
         }
+        this.checkpoint.truncate(HEADER + records * RECORD);
+        this.checkpoint.position(HEADER + records * RECORD);
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            int bytes = channel.read(buffer, position + buffer.position());
+            if (bytes < 0) throw new IOException("checkpoint truncated");
+        }
+        buffer.flip();
+    }
+
+    private void save(Accumulator a) {
+    // append the block just merged to the checkpoint, if there is one
+        if (this.checkpoint == null) return;
+        ByteBuffer record = ByteBuffer.allocate(RECORD);
+        record.putInt(this.merged).putInt((int) a.count);
+        record.putDouble(a.mean).putDouble(a.m2);
+        record.flip();
+        try {
+            while (record.hasRemaining()) this.checkpoint.write(record);
+            long now = System.nanoTime();
+            if (now - this.synced >= SYNC_NANOS) {
+                this.checkpoint.force(false);
+                this.synced = now;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private double halfWidth() {
+        return 1.96 * this.stddev() / Math.sqrt(this.total.count);
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - this.start >= this.budget;
+    }
+
+    private Accumulator block(Percolation perc, long seed, int b) {
+    // run the trials of block b one after another on the same grid; once
+    // the time budget is spent the block ends after the current trial, but
+    // the first MIN_TRIALS trials always run so stddev() is defined
+        Accumulator acc = new Accumulator();
+        int end = Math.min(this.limit, (b + 1) * BLOCK);
+        for (int i = b * BLOCK; i < end && (i < MIN_TRIALS || !this.expired()); i++) {
+            perc.reset();
+            acc.add(trial(perc, stream(seed, i)));
+        }
+        return acc;
+    }
+
+    static SplittableRandom stream(long seed, int trial) {
+    // independent random stream of the given trial, a pure function of
+    // (seed, trial) so it does not matter which thread runs the trial
+        long s = new SplittableRandom(seed + trial * GOLDEN_GAMMA).nextLong();
+        return new SplittableRandom(s).split();
+    }
+
+    private static double trial(Percolation perc, SplittableRandom random) {
+    // open random sites until the system percolates, return open fraction;
+    // near the threshold drawing again for an open site is cheaper than a
+    // shuffled order of all sites, see PercolationStatsBenchmark
+        int n = perc.size();
         int col;
         int row;
-        this.fractions = new double[trials];
-        for (int i = 0; i < trials; i++) {
-            while (percs[i].percolates() == false) {
-                col = StdRandom.uniform(n) + 1;
-                row = StdRandom.uniform(n) + 1;
-                while (percs[i].isOpen(row, col) == true) {
-                    col = StdRandom.uniform(n) + 1;
-                    row = StdRandom.uniform(n) + 1;
-                }
-                percs[i].open(row, col);
+        while (perc.percolates() == false) {
+            col = random.nextInt(n) + 1;
+            row = random.nextInt(n) + 1;
+            while (perc.isOpen(row, col) == true) {
+                col = random.nextInt(n) + 1;
+                row = random.nextInt(n) + 1;
             }
-            this.fractions[i] = percs[i].numberOfOpenSites() * 1.0 / (n * n);
+            perc.open(row, col);
         }
-        this.n = n;
-        this.trials = trials;
+        return perc.numberOfOpenSites() * 1.0 / (n * n);
     }
-    
+
     public double mean() {
     // sample mean of percolation threshold
-        return StdStats.mean(this.fractions);
+        return this.total.mean;
     }
     public double stddev() {
     // sample standard deviation of percolation threshold
-        return StdStats.stddev(this.fractions);
+        return Math.sqrt(this.total.m2 / (this.total.count - 1));
     }
     public double confidenceLo() {
     // low  endpoint of 95% confidence interval
-        return this.mean() - 1.96 * this.stddev() / Math.sqrt(this.trials);
+        return this.mean() - this.halfWidth();
     }
     public double confidenceHi() {
     // high endpoint of 95% confidence interval
-        return this.mean() + 1.96 * this.stddev() / Math.sqrt(this.trials);
+        return this.mean() + this.halfWidth();
+    }
+    public int trials() {
+    // number of trials performed
+        return this.trials;
+    }
+
+    private static class Accumulator {
+        // running mean and sum of squared deviations (Welford)
+        long count;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        void merge(Accumulator that) {
+            // combine two partial results (Chan et al.)
+            if (that.count == 0) return;
+            long c = count + that.count;
+            double delta = that.mean - mean;
+            mean += delta * that.count / c;
+            m2 += that.m2 + delta * delta * count / c * that.count;
+            count = c;
+        }
     }
 
     public static void main(String[] args) {
         // test client (described below)
+        // optional third and fourth arguments: seed and number of threads,
+        // fifth: checkpoint file to resume from and to append to;
+        // java PercolationStats n halfWidth millis seed threads runs until
+        // the confidence interval is narrow enough; the second argument
+        // is a halfWidth whenever it is not an integer (0.01, 1e-3)
         int n = Integer.parseInt(args[0]);
-        int trials = Integer.parseInt(args[1]);
-        PercolationStats s = new PercolationStats(n, trials);
+        PercolationStats s;
+        boolean adaptive = false;
+        try {
+            Integer.parseInt(args[1]);
+        }
+        catch (NumberFormatException e) {
+            adaptive = true;
+        }
+        if (adaptive) {
+            double halfWidth = Double.parseDouble(args[1]);
+            long millis = Long.parseLong(args[2]);
+            long seed = Long.parseLong(args[3]);
+            int threads = Integer.parseInt(args[4]);
+            s = new PercolationStats(n, halfWidth, millis, seed, threads);
+            System.out.printf("trials                  = %d\n", s.trials());
+        }
+        else if (args.length > 2) {
+            int trials = Integer.parseInt(args[1]);
+            long seed = Long.parseLong(args[2]);
+            int threads = Runtime.getRuntime().availableProcessors();
+            if (args.length > 3) threads = Integer.parseInt(args[3]);
+            if (args.length > 4) {
+                s = new PercolationStats(n, trials, seed, threads, Paths.get(args[4]));
+            }
+            else {
+                s = new PercolationStats(n, trials, seed, threads);
+            }
+        }
+        else {
+            s = new PercolationStats(n, Integer.parseInt(args[1]));
+        }
         System.out.printf("mean                    = %1.16f\n", s.mean());
         System.out.printf("stddev                  = %1.16f\n", s.stddev());
         System.out.printf("95%% confidence interval = [%1.16f, %1.16f]\n",
             s.confidenceLo(), s.confidenceHi());
     }
-}
\ No newline at end of file
+}
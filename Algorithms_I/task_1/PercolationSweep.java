@@ -0,0 +1,188 @@
+/******************************************************************************
+ *  Compilation:  javac PercolationSweep.java
+ *  Execution:    java PercolationSweep n trials [seed] [points]
+ *  Dependencies: PercolationStats.java
+ *
+ *  Newman-Ziff sweep: every trial opens all n^2 sites in one random order
+ *  and records the observables after each step k (k open sites). Averaged
+ *  over trials this gives the curves Q(k) of the "microcanonical" ensemble,
+ *  which are turned into functions of p by the binomial convolution
+ *
+ *      Q(p) = sum_k C(N, k) p^k (1 - p)^(N - k) Q(k),   N = n^2.
+ *
+ *  Observables: probability that the system percolates and mean cluster
+ *  size (sum of squared cluster sizes over the number of open sites).
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.StdRandom;
+import java.util.SplittableRandom;
+
+public class PercolationSweep {
+    // binomial weights below this (relative to the mode) are ignored
+    private static final double CUTOFF = 1e-30;
+
+    private final int n;
+    private final int trials;
+    private final double[] spanning;
+    private final double[] clusterSize;
+
+    public PercolationSweep(int n, int trials) {
+        // sweep trials n-by-n grids
+        this(n, trials, StdRandom.uniform(Integer.MAX_VALUE));
+    }
+
+    public PercolationSweep(int n, int trials, long seed) {
+        // sweep trials n-by-n grids; the opening order of trial i depends
+        // only on seed and i
+        if (n <= 0 || trials <= 0) throw new IllegalArgumentException("War");
+        this.n = n;
+        this.trials = trials;
+        this.spanning = new double[n * n + 1];
+        this.clusterSize = new double[n * n + 1];
+
+        int[] parent = new int[n * n];
+        byte[] touch = new byte[n * n];
+        int[] sites = new int[n * n];
+        for (int t = 0; t < trials; t++) {
+            for (int i = 0; i < sites.length; i++) sites[i] = i;
+            sweep(parent, touch, sites, PercolationStats.stream(seed, t));
+        }
+        for (int k = 0; k <= n * n; k++) {
+            this.spanning[k] /= trials;
+            this.clusterSize[k] /= trials;
+        }
+    }
+
+    private void sweep(int[] parent, byte[] touch, int[] sites,
+                       SplittableRandom random) {
+        // open all sites in random order; parent[] is 0 for a blocked site,
+        // -size for a root and parent + 1 otherwise, touch[] has bit 1 (top
+        // row) and bit 2 (bottom row) set for a root
+        int size = this.n * this.n;
+        int[] neighbors = new int[4];
+        boolean percolates = false;
+        long squares = 0;
+        for (int k = 0; k < size; k++) {
+            int j = k + random.nextInt(size - k);
+            int site = sites[j];
+            sites[j] = sites[k];
+            sites[k] = site;
+            // site k + 1 is opened; sites not yet opened have parent 0
+            int row = site / this.n;
+            int col = site % this.n;
+            parent[site] = -1;
+            touch[site] = 0;
+            if (row == 0) touch[site] |= 1;
+            if (row == this.n - 1) touch[site] |= 2;
+            squares += 1;
+
+            int count = 0;
+            if (row > 0) neighbors[count++] = site - this.n;
+            if (row < this.n - 1) neighbors[count++] = site + this.n;
+            if (col > 0) neighbors[count++] = site - 1;
+            if (col < this.n - 1) neighbors[count++] = site + 1;
+            int root = site;
+            for (int i = 0; i < count; i++) {
+                if (parent[neighbors[i]] == 0) continue;
+                int other = find(parent, neighbors[i]);
+                if (other == root) continue;
+                long a = -parent[root];
+                long b = -parent[other];
+                squares += 2 * a * b;
+                if (a < b) {
+                    int tmp = root;
+                    root = other;
+                    other = tmp;
+                }
+                parent[root] += parent[other];
+                parent[other] = root + 1;
+                touch[root] |= touch[other];
+            }
+            if (touch[root] == 3) percolates = true;
+
+            if (percolates) this.spanning[k + 1] += 1;
+            this.clusterSize[k + 1] += squares * 1.0 / (k + 1);
+        }
+        // clear for the next sweep
+        for (int i = 0; i < size; i++) parent[i] = 0;
+    }
+
+    private static int find(int[] parent, int p) {
+        // root of p with path halving
+        while (parent[p] > 0) {
+            int q = parent[p] - 1;
+            if (parent[q] > 0) parent[p] = parent[q];
+            p = parent[p] - 1;
+        }
+        return p;
+    }
+
+    private double convolve(double[] q, double p) {
+        // sum_k C(N, k) p^k (1 - p)^(N - k) q[k], computed outwards from the
+        // mode of the binomial so that no factorial ever overflows
+        if (p < 0.0 || p > 1.0) throw new IllegalArgumentException("p");
+        int size = this.n * this.n;
+        if (p == 0.0) return q[0];
+        if (p == 1.0) return q[size];
+        int mode = (int) Math.min(size, Math.floor((size + 1) * p));
+        double ratio = p / (1.0 - p);
+        double sum = q[mode];
+        double norm = 1.0;
+        double w = 1.0;
+        for (int k = mode; k < size && w > CUTOFF; k++) {
+            w *= (size - k) * ratio / (k + 1);
+            sum += w * q[k + 1];
+            norm += w;
+        }
+        w = 1.0;
+        for (int k = mode; k > 0 && w > CUTOFF; k--) {
+            w *= k / ((size - k + 1) * ratio);
+            sum += w * q[k - 1];
+            norm += w;
+        }
+        return sum / norm;
+    }
+
+    public int trials() {
+        // number of sweeps averaged
+        return this.trials;
+    }
+
+    public double percolationProbability(double p) {
+        // probability that the system percolates when sites are open with
+        // probability p
+        return this.convolve(this.spanning, p);
+    }
+
+    public double meanClusterSize(double p) {
+        // mean size of the cluster containing a random open site
+        return this.convolve(this.clusterSize, p);
+    }
+
+    public double percolationProbability(int k) {
+        // probability that the system percolates with exactly k open sites
+        return this.spanning[k];
+    }
+
+    public double meanClusterSize(int k) {
+        // mean cluster size with exactly k open sites
+        return this.clusterSize[k];
+    }
+
+    public static void main(String[] args) {
+        // test client: n, trials, optional seed and number of points
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        PercolationSweep s;
+        if (args.length > 2) s = new PercolationSweep(n, trials, Long.parseLong(args[2]));
+        else                 s = new PercolationSweep(n, trials);
+        int points = 40;
+        if (args.length > 3) points = Integer.parseInt(args[3]);
+        System.out.printf("%-8s %-20s %-20s\n", "p", "P(percolates)", "mean cluster size");
+        for (int i = 0; i <= points; i++) {
+            double p = i * 1.0 / points;
+            System.out.printf("%-8.4f %-20.16f %-20.16f\n",
+                p, s.percolationProbability(p), s.meanClusterSize(p));
+        }
+    }
+}
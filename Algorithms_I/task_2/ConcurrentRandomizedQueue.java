@@ -0,0 +1,206 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+    // the items are spread over stripes, each a small RandomizedQueue with
+    // its own lock and its own SplittableRandom. A thread enqueues into the
+    // stripe of its own id, or into the next free one when that is locked.
+    // dequeue() and sample() pick a stripe with probability proportional
+    // to its size and then an item of it uniformly at random, so every
+    // item is equally likely; when other threads change the queue at the
+    // same time the sizes seen may be a little out of date.
+    private final Stripe<Item>[] stripes;
+
+    private static final class Stripe<Item> {
+        final ReentrantLock lock = new ReentrantLock();
+        final SplittableRandom random;
+        @SuppressWarnings("unchecked")
+        Item[] a = (Item[]) new Object[2];
+        volatile int count;
+
+        Stripe(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @SuppressWarnings("unchecked")
+        void resize(int capacity) {
+            Item[] temp = (Item[]) new Object[capacity];
+            System.arraycopy(a, 0, temp, 0, count);
+            a = temp;
+        }
+    }
+
+    public ConcurrentRandomizedQueue() {
+    // construct an empty randomized queue with a stripe per processor
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentRandomizedQueue(int stripeCount) {
+    // construct an empty randomized queue with the given number of stripes
+        if (stripeCount <= 0) throw new IllegalArgumentException("stripe count");
+        stripes = (Stripe<Item>[]) new Stripe<?>[stripeCount];
+        SplittableRandom random = new SplittableRandom();
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new Stripe<Item>(random.split());
+    }
+
+    public boolean isEmpty() {
+    // is the randomized queue empty?
+        return size() == 0;
+    }
+
+    public int size() {
+    // return the number of items on the randomized queue
+        int size = 0;
+        for (Stripe<Item> stripe : stripes) size += stripe.count;
+        return size;
+    }
+
+    public void enqueue(Item item) {
+    // add the item
+        if (item == null) throw new IllegalArgumentException("null input");
+        int home = (int) (Thread.currentThread().getId() % stripes.length);
+        Stripe<Item> stripe = null;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe<Item> next = stripes[(home + i) % stripes.length];
+            if (next.lock.tryLock()) {
+                stripe = next;
+                break;
+            }
+        }
+        if (stripe == null) {
+            stripe = stripes[home];
+            stripe.lock.lock();
+        }
+        try {
+            if (stripe.count == stripe.a.length) stripe.resize(2*stripe.a.length);
+            stripe.a[stripe.count] = item;
+            stripe.count++;
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private boolean isEmptyLocked() {
+    // are all stripes empty at once? the counts read one by one can add up
+    // to 0 while other threads enqueue into stripes already counted and
+    // dequeue from stripes not counted yet
+        for (Stripe<Item> stripe : stripes) stripe.lock.lock();
+        try {
+            return size() == 0;
+        }
+        finally {
+            for (Stripe<Item> stripe : stripes) stripe.lock.unlock();
+        }
+    }
+
+    private Stripe<Item> lockRandomStripe() {
+    // lock and return a non-empty stripe chosen with probability
+    // proportional to its size, null if all stripes are empty
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int size = size();
+            if (size == 0 && isEmptyLocked()) return null;
+            if (size == 0) continue;
+            int r = random.nextInt(size);
+            int i = 0;
+            while (i < stripes.length - 1 && r >= stripes[i].count) r -= stripes[i++].count;
+            Stripe<Item> stripe = stripes[i];
+            stripe.lock.lock();
+            if (stripe.count > 0) return stripe;
+            // emptied meanwhile, try again with fresh sizes
+            stripe.lock.unlock();
+        }
+    }
+
+    public Item dequeue() {
+    // remove and return a random item
+        Stripe<Item> stripe = lockRandomStripe();
+        if (stripe == null) throw new NoSuchElementException("Stack underflow");
+        try {
+            int k = stripe.random.nextInt(stripe.count);
+            int last = stripe.count - 1;
+            Item item = stripe.a[k];
+            stripe.a[k] = stripe.a[last];
+            stripe.a[last] = null;
+            stripe.count = last;
+            if (stripe.a.length > 2 && last <= stripe.a.length/4) stripe.resize(stripe.a.length/2);
+            return item;
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public Item sample() {
+    // return a random item (but do not remove it)
+        Stripe<Item> stripe = lockRandomStripe();
+        if (stripe == null) throw new NoSuchElementException("Stack underflow");
+        try {
+            return stripe.a[stripe.random.nextInt(stripe.count)];
+        }
+        finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public Iterator<Item> iterator() {
+    // return an independent iterator over items in random order; it sees
+    // each stripe as it was when the iterator copied it
+        return new ArrayIterator();
+    }
+
+    private class ArrayIterator implements Iterator<Item> {
+        // a copy of the items, shuffled one step per next() as in
+        // RandomizedQueue
+        private Item[] b;
+        private int size;
+        private int current;
+
+        @SuppressWarnings("unchecked")
+        public ArrayIterator() {
+            b = (Item[]) new Object[size()];
+            for (Stripe<Item> stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    if (size + stripe.count > b.length) {
+                        Item[] temp = (Item[]) new Object[2*(size + stripe.count)];
+                        System.arraycopy(b, 0, temp, 0, size);
+                        b = temp;
+                    }
+                    System.arraycopy(stripe.a, 0, b, size, stripe.count);
+                    size += stripe.count;
+                }
+                finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return current < size;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int j = current + ThreadLocalRandom.current().nextInt(size - current);
+            Item item = b[j];
+            b[j] = b[current];
+            b[current++] = item;
+            return item;
+        }
+    }
+
+    public static void main(String[] args) {
+    // unit testing (optional)
+        return;
+    }
+}
@@ -1,108 +1,166 @@
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 
 public class Deque<Item> implements Iterable<Item> {
-    private Node first;
-    private Node last;
+    // ring buffer: the items are a[first], a[first+1], ... (mod a.length);
+    // the capacity is a power of two so that wrapping is a mask
+    private static final int MIN_CAPACITY = 8;
+    private Item[] a;
+    private int first;
     private int count;
-    
-    private class Node {
-        Item item;
-        Node next;
-        Node previous;
-    }
-    
+
+    @SuppressWarnings("unchecked")
     public Deque() {
     // construct an empty deque
+        a = (Item[]) new Object[MIN_CAPACITY];
+        first = 0;
         count = 0;
-        first = null;
-        last = null;
     }
-    
+
     public boolean isEmpty() {
     // is the deque empty?
         return count == 0;
     }
-    
+
     public int size() {
     // return the number of items on the deque
         return count;
     }
-    
+
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+    // move the items to an array of the given capacity, unwrapped
+        assert capacity >= count;
+        Item[] temp = (Item[]) new Object[capacity];
+        int head = Math.min(count, a.length - first);
+        System.arraycopy(a, first, temp, 0, head);
+        System.arraycopy(a, 0, temp, head, count - head);
+        a = temp;
+        first = 0;
+    }
+
+    private void shrink() {
+    // halve the array when it is a quarter full
+        if (a.length > MIN_CAPACITY && count == a.length/4) resize(a.length/2);
+    }
+
     public void addFirst(Item item) {
     // add the item to the front
         if (item == null) throw new IllegalArgumentException("incorrect input");
-        Node oldfirst = first;
-        first = new Node();
-        first.item = item;
-        if (oldfirst != null) oldfirst.previous = first;
-        first.next = oldfirst;
-        first.previous = null;
+        if (count == a.length) resize(2*a.length);
+        first = (first - 1) & (a.length - 1);
+        a[first] = item;
         count++;
-        if (count == 1) last = first;
     }
-    
+
     public void addLast(Item item) {
     // add the item to the end
         if (item == null) throw new IllegalArgumentException("incorrect input");
-        Node newlast = new Node();
-        newlast.item = item;
-        newlast.next = null;
-        newlast.previous = last;
-        if (last != null) last.next = newlast;
-        last = newlast;
+        if (count == a.length) resize(2*a.length);
+        a[(first + count) & (a.length - 1)] = item;
         count++;
-        if (count == 1) first = last;
     }
-    
+
     public Item removeFirst() {
     // remove and return the item from the front
         if (this.isEmpty()) {
             throw new NoSuchElementException("Removing from empty dequeue");
         }
-        Item item = first.item;
-        first = first.next;
-        if (first != null) first.previous = null;
+        Item item = a[first];
+        a[first] = null;
+        first = (first + 1) & (a.length - 1);
         count--;
+        shrink();
         return item;
     }
-    
+
     public Item removeLast() {
     // remove and return the item from the end
         if (this.isEmpty()) {
             throw new NoSuchElementException("Removing from empty dequeue");
         }
-        Item item = last.item;
-        last = last.previous;
-        if (last != null) last.next = null;
+        int k = (first + count - 1) & (a.length - 1);
+        Item item = a[k];
+        a[k] = null;
         count--;
+        shrink();
         return item;
     }
-    
+
     public Iterator<Item> iterator() {
     // return an iterator over items in order from front to end
-        return new ListIterator();
+        return new ArrayIterator();
     }
-    
-    private class ListIterator implements Iterator<Item> {
-        private Node current = first;
-        public boolean hasNext() { return current != null; }
+
+    private class ArrayIterator implements Iterator<Item> {
+        private int current = 0;
+        public boolean hasNext() { return current < count; }
         public void remove() {
             throw new UnsupportedOperationException("Unsupported method");
         }
         public Item next() {
-            if (current == null) {
+            if (current >= count) {
                 throw new NoSuchElementException("No more items to return");
             }
-            Item item = current.item;
-            current = current.next;
-            return item;
+            return a[(first + current++) & (a.length - 1)];
         }
     }
-    
+
+    public Spliterator<Item> spliterator() {
+    // return a spliterator over items in order from front to end; it splits
+    // by halving its range of the array, so parallel streams get balanced
+    // parts of exactly known size
+        return new ArraySpliterator<Item>(a, first, 0, count);
+    }
+
+    private static class ArraySpliterator<Item> implements Spliterator<Item> {
+        // items first+current .. first+end-1 (mod b.length) of array b
+        private final Item[] b;
+        private final int first;
+        private int current;
+        private final int end;
+
+        public ArraySpliterator(Item[] b, int first, int current, int end) {
+            this.b = b;
+            this.first = first;
+            this.current = current;
+            this.end = end;
+        }
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (current >= end) return false;
+            action.accept(b[(first + current++) & (b.length - 1)]);
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Item> action) {
+            int mask = b.length - 1;
+            for (int i = current; i < end; i++) action.accept(b[(first + i) & mask]);
+            current = end;
+        }
+
+        public Spliterator<Item> trySplit() {
+            int mid = (current + end) >>> 1;
+            if (mid <= current) return null;
+            Spliterator<Item> prefix = new ArraySpliterator<Item>(b, first, current, mid);
+            current = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return end - current;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
     public static void main(String[] args) {
         // unit testing (optional)
         return;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+public class LongDeque implements Iterable<Long> {
+    // Deque of longs without boxing, the same ring buffer as Deque over a long[]
+    private static final int MIN_CAPACITY = 8;
+    private long[] a;
+    private int first;
+    private int count;
+
+    public LongDeque() {
+    // construct an empty deque
+        a = new long[MIN_CAPACITY];
+        first = 0;
+        count = 0;
+    }
+
+    public boolean isEmpty() {
+    // is the deque empty?
+        return count == 0;
+    }
+
+    public int size() {
+    // return the number of items on the deque
+        return count;
+    }
+
+    private void resize(int capacity) {
+    // move the items to an array of the given capacity, unwrapped
+        assert capacity >= count;
+        long[] temp = new long[capacity];
+        int head = Math.min(count, a.length - first);
+        System.arraycopy(a, first, temp, 0, head);
+        System.arraycopy(a, 0, temp, head, count - head);
+        a = temp;
+        first = 0;
+    }
+
+    private void shrink() {
+    // halve the array when it is a quarter full
+        if (a.length > MIN_CAPACITY && count == a.length/4) resize(a.length/2);
+    }
+
+    public void addFirst(long item) {
+    // add the item to the front
+        if (count == a.length) resize(2*a.length);
+        first = (first - 1) & (a.length - 1);
+        a[first] = item;
+        count++;
+    }
+
+    public void addLast(long item) {
+    // add the item to the end
+        if (count == a.length) resize(2*a.length);
+        a[(first + count) & (a.length - 1)] = item;
+        count++;
+    }
+
+    public long removeFirst() {
+    // remove and return the item from the front
+        if (this.isEmpty()) {
+            throw new NoSuchElementException("Removing from empty dequeue");
+        }
+        long item = a[first];
+        first = (first + 1) & (a.length - 1);
+        count--;
+        shrink();
+        return item;
+    }
+
+    public long removeLast() {
+    // remove and return the item from the end
+        if (this.isEmpty()) {
+            throw new NoSuchElementException("Removing from empty dequeue");
+        }
+        long item = a[(first + count - 1) & (a.length - 1)];
+        count--;
+        shrink();
+        return item;
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+    // return an iterator over items in order from front to end
+        return new ArrayIterator();
+    }
+
+    private class ArrayIterator implements PrimitiveIterator.OfLong {
+        private int current = 0;
+        public boolean hasNext() { return current < count; }
+        public void remove() {
+            throw new UnsupportedOperationException("Unsupported method");
+        }
+        public long nextLong() {
+            if (current >= count) {
+                throw new NoSuchElementException("No more items to return");
+            }
+            return a[(first + current++) & (a.length - 1)];
+        }
+    }
+
+    public static void main(String[] args) {
+        // unit testing (optional)
+        return;
+    }
+}
@@ -1,18 +1,261 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class Permutation {
-    public static void main(String[] args) {
-        RandomizedQueue<String> rqueue = new RandomizedQueue<String>();
+    // java Permutation k            all tokens go to a RandomizedQueue
+    // java Permutation k -stream    only k tokens are kept, see stream()
+    // java Permutation k -external [dir]
+    //                               tokens are shuffled on disk, in
+    //                               temporary files under dir, see external()
+    private static final int BUCKETS = 64;
+    private static final int BUFFER = 1 << 16;
+
+    private static class Tokenizer {
+        // whitespace-separated tokens of a byte stream, as raw bytes; a
+        // token can be skipped without copying it anywhere
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER];
+        private int position;
+        private int limit;
+        private byte[] token = new byte[64];
+
+        public Tokenizer(InputStream in) {
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            // next byte, -1 at the end of the stream
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private int start() throws IOException {
+            // first byte of the next token, -1 at the end of the stream
+            int b = read();
+            while (b >= 0 && b <= ' ') b = read();
+            return b;
+        }
+
+        public boolean skip() throws IOException {
+            // pass over the next token, false if there is none
+            int b = start();
+            if (b < 0) return false;
+            while (b > ' ') b = read();
+            return true;
+        }
+
+        public byte[] next() throws IOException {
+            // the next token, null if there is none
+            int b = start();
+            if (b < 0) return null;
+            int length = 0;
+            while (b > ' ') {
+                if (length == token.length) token = Arrays.copyOf(token, 2*length);
+                token[length++] = (byte) b;
+                b = read();
+            }
+            return Arrays.copyOf(token, length);
+        }
+    }
+
+    private static double uniform() {
+        // random number in (0, 1]
+        return 1.0 - StdRandom.uniform();
+    }
+
+    private static byte[][] stream(Tokenizer tokens, int k) throws IOException {
+        // a uniformly random sample of min(k, n) of the n tokens, kept in
+        // O(k) memory by reservoir sampling (Li's algorithm L: the number
+        // of tokens to skip before the next replacement is drawn directly,
+        // so skipped tokens cost no random numbers and no copies)
+        byte[][] reservoir = new byte[k][];
+        int size = 0;
+        while (size < k && (reservoir[size] = tokens.next()) != null) size++;
+        if (size < k) return Arrays.copyOf(reservoir, size);
+        if (k == 0) return reservoir;
+        double w = Math.exp(Math.log(uniform()) / k);
+        while (true) {
+            long skip = (long) Math.floor(Math.log(uniform()) / Math.log(1 - w));
+            for (long i = 0; i < skip; i++) {
+                if (!tokens.skip()) return reservoir;
+            }
+            byte[] token = tokens.next();
+            if (token == null) return reservoir;
+            reservoir[StdRandom.uniform(k)] = token;
+            w *= Math.exp(Math.log(uniform()) / k);
+        }
+    }
+
+    private static Path[] scatter(Tokenizer tokens, Path dir, long[] counts) throws IOException {
+        // append every token, followed by '\n', to one of BUCKETS new files
+        // in dir chosen uniformly at random; counts[i] gets the number of
+        // tokens of file i. Each file is written sequentially through its
+        // own buffer.
+        Path[] buckets = new Path[BUCKETS];
+        FileChannel[] channels = new FileChannel[BUCKETS];
+        ByteBuffer[] buffers = new ByteBuffer[BUCKETS];
+        try {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = Files.createTempFile(dir, "bucket", ".txt");
+                channels[i] = FileChannel.open(buckets[i], StandardOpenOption.WRITE);
+                buffers[i] = ByteBuffer.allocate(BUFFER);
+            }
+            byte[] token;
+            while ((token = tokens.next()) != null) {
+                int i = StdRandom.uniform(BUCKETS);
+                ByteBuffer buffer = buffers[i];
+                if (buffer.remaining() <= token.length) drain(channels[i], buffer);
+                if (token.length < buffer.capacity()) {
+                    buffer.put(token);
+                }
+                else {
+                    // too long for the buffer: write it out directly
+                    ByteBuffer wrapped = ByteBuffer.wrap(token);
+                    while (wrapped.hasRemaining()) channels[i].write(wrapped);
+                }
+                buffer.put((byte) '\n');
+                counts[i]++;
+            }
+            for (int i = 0; i < BUCKETS; i++) drain(channels[i], buffers[i]);
+        }
+        finally {
+            for (FileChannel channel : channels) {
+                if (channel != null) channel.close();
+            }
+        }
+        return buckets;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        // write out what the buffer holds and empty it
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private static long emit(Path bucket, long count, Path dir, long limit,
+                             long k, OutputStream out) throws IOException {
+        // write min(k, count) of the count tokens of bucket to out in
+        // uniformly random order and delete it; return how many were written.
+        // A bucket of more than limit bytes is scattered again.
+        try {
+            if (k == 0 || count == 0) return 0;
+            if (count == 1) {
+                Files.copy(bucket, out);
+                return 1;
+            }
+            if (Files.size(bucket) > limit) {
+                long[] counts = new long[BUCKETS];
+                Path[] parts;
+                try (InputStream in = Files.newInputStream(bucket)) {
+                    parts = scatter(new Tokenizer(in), dir, counts);
+                }
+                Files.delete(bucket);
+                long written = 0;
+                for (int i = 0; i < BUCKETS; i++) {
+                    written += emit(parts[i], counts[i], dir, limit, k - written, out);
+                }
+                return written;
+            }
+            byte[] bytes = Files.readAllBytes(bucket);
+            int[] starts = new int[(int) count];
+            int n = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (i == 0 || bytes[i - 1] == '\n') starts[n++] = i;
+            }
+            StdRandom.shuffle(starts);
+            int written = (int) Math.min(k, count);
+            for (int i = 0; i < written; i++) {
+                int end = starts[i];
+                while (bytes[end] != '\n') end++;
+                out.write(bytes, starts[i], end - starts[i] + 1);
+            }
+            return written;
+        }
+        finally {
+            Files.deleteIfExists(bucket);
+        }
+    }
+
+    private static void external(Tokenizer tokens, int k, Path base, OutputStream out) throws IOException {
+        // write k tokens of a uniformly random permutation of all tokens, in
+        // bounded memory: every token goes to a random bucket file and then
+        // the buckets are shuffled one at a time in memory and written out
+        // in order. Any order is equally likely, since the buckets and the
+        // shuffles are independent. A bucket bigger than an eighth of the
+        // heap is split the same way again.
+        long limit = Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE - 8);
+        Path dir = Files.createTempDirectory(base, "permutation");
+        try {
+            long[] counts = new long[BUCKETS];
+            Path[] buckets = scatter(tokens, dir, counts);
+            long written = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                written += emit(buckets[i], counts[i], dir, limit, k - written, out);
+            }
+        }
+        finally {
+            // buckets not emitted yet when an exception got here
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
         int k = Integer.parseInt(args[0]);
+        if (args.length > 1 && args[1].equals("-stream")) {
+            byte[][] sample = stream(new Tokenizer(System.in), k);
+            // the reservoir keeps early tokens in input order
+            StdRandom.shuffle(sample);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER);
+            for (byte[] token : sample) {
+                out.write(token);
+                out.write('\n');
+            }
+            out.flush();
+            return;
+        }
+        if (args.length > 1 && args[1].equals("-external")) {
+            Path base = Paths.get(args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir"));
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER);
+            external(new Tokenizer(System.in), k, base, out);
+            out.flush();
+            return;
+        }
+
+        RandomizedQueue<String> rqueue = new RandomizedQueue<String>();
         String s;
         while (!StdIn.isEmpty()) {
             s = StdIn.readString();
             rqueue.enqueue(s);
         }
-        
+
         for (int i = 0; i < k; i++) {
             StdOut.println(rqueue.dequeue());
         }
     }
-}
\ No newline at end of file
+}
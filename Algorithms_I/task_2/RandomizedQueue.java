@@ -1,130 +1,176 @@
 import edu.princeton.cs.algs4.StdRandom;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
+    // the items are a[0..count-1] in no particular order, so a random item
+    // is a random index and removing it is a swap with the last one
     private Item[] a;
     private int count;
-    private int[] order;
-    
+
+    @SuppressWarnings("unchecked")
     public RandomizedQueue() {
     // construct an empty randomized queue
         a = (Item[]) new Object[2];
         count = 0;
-        order = StdRandom.permutation(count);
     }
-    
+
     public boolean isEmpty() {
     // is the randomized queue empty?
         return count == 0;
     }
-    
+
     public int size() {
     // return the number of items on the randomized queue
         return count;
     }
-    
+
+    @SuppressWarnings("unchecked")
     private void resize(int capacity) {
-    // resize an array if it is full
+    // move the items to an array of the given capacity
         assert capacity >= count;
-        int nNull = 0;
-        
         Item[] temp = (Item[]) new Object[capacity];
-        for (int i = 0; i < a.length; i++) {
-            if (a[i] == null) {
-                nNull++;
-            }
-            else {
-                temp[i-nNull] = a[i];
-            }
-        }
+        System.arraycopy(a, 0, temp, 0, count);
         a = temp;
     }
-    
+
+    private void shrink() {
+    // halve the array while it is at most a quarter full
+        while (a.length > 2 && count <= a.length/4) resize(a.length/2);
+    }
+
     public void enqueue(Item item) {
     // add the item
         if (item == null) throw new IllegalArgumentException("null input");
-        if (count == a.length) {
-            resize(2*a.length);
-            order = StdRandom.permutation(count+1);
-        }
+        if (count == a.length) resize(2*a.length);
         a[count++] = item;
     }
-    
+
+    public void enqueueAll(Collection<? extends Item> items) {
+    // add all the items; nothing is added if one of them is null
+        Object[] batch = items.toArray();
+        for (Object item : batch) {
+            if (item == null) throw new IllegalArgumentException("null input");
+        }
+        int capacity = a.length;
+        while (capacity < count + batch.length) capacity *= 2;
+        if (capacity != a.length) resize(capacity);
+        System.arraycopy(batch, 0, a, count, batch.length);
+        count += batch.length;
+    }
+
     public Item dequeue() {
     // remove and return a random item
         if (isEmpty()) throw new NoSuchElementException("Stack underflow");
-        Item item;
-        if (count < 2) {
-            item = a[0];
-            a[0] = null;
-        }
-        else {
-            item = a[order[count-1]];
-            a[order[count-1]] = null;
-        }
-        count--;
-        
-        if (count > 0 && count == a.length/4) {
-            resize(a.length/2);
-            order = StdRandom.permutation(count);
-        }
+        int k = StdRandom.uniform(count);
+        Item item = a[k];
+        a[k] = a[--count];
+        a[count] = null;
+        shrink();
         return item;
     }
-    
+
+    public void dequeue(Item[] out, int k) {
+    // remove k random items and put them in out[0..k-1]
+        check(out, k);
+        if (k > count) throw new NoSuchElementException("Stack underflow");
+        for (int i = 0; i < k; i++) {
+            int j = StdRandom.uniform(count);
+            out[i] = a[j];
+            a[j] = a[--count];
+            a[count] = null;
+        }
+        shrink();
+    }
+
     public Item sample() {
     // return a random item (but do not remove it)
         if (isEmpty()) throw new NoSuchElementException("Stack underflow");
-        int k = StdRandom.uniform(a.length);
-        while (a[k] == null) {
-            k++;
-            if (k == a.length) k = 0;
+        return a[StdRandom.uniform(count)];
+    }
+
+    public void sample(Item[] out, int k, boolean replacement) {
+    // put k random items in out[0..k-1] (but do not remove them), all
+    // distinct unless with replacement
+        check(out, k);
+        if (replacement) {
+            if (k > 0 && isEmpty()) throw new NoSuchElementException("Stack underflow");
+            for (int i = 0; i < k; i++) out[i] = a[StdRandom.uniform(count)];
+            return;
         }
-        return a[k];
+        if (k > count) throw new NoSuchElementException("Stack underflow");
+        // partial Fisher-Yates: the k chosen items gather at the end of the
+        // array, which is still the same set of items afterwards
+        for (int i = 0; i < k; i++) {
+            int last = count - 1 - i;
+            int j = StdRandom.uniform(last + 1);
+            Item item = a[j];
+            a[j] = a[last];
+            a[last] = item;
+            out[i] = item;
+        }
+    }
+
+    private static void check(Object[] out, int k) {
+        if (k < 0) throw new IllegalArgumentException("negative k");
+        if (out.length < k) throw new IllegalArgumentException("output array too short");
     }
-    
+
     public Iterator<Item> iterator() {
     // return an independent iterator over items in random order
         return new ArrayIterator();
     }
-    
+
     private class ArrayIterator implements Iterator<Item> {
+        // a copy of the items, shuffled one step per next(): b[current..]
+        // are the items not returned yet. The copy costs O(n) up front, even
+        // when only a few items are read, but it keeps the iterator
+        // independent of other iterators and of sample() and dequeue(),
+        // which move items around in a[]
         private final Item[] b;
-        private final int[] order;
         private int current;
-        
-        
+
+        @SuppressWarnings("unchecked")
         public ArrayIterator() {
             b = (Item[]) new Object[count];
-            order = StdRandom.permutation(count);
+            System.arraycopy(a, 0, b, 0, count);
             current = 0;
-            int nNull = 0;
-            for (int i = 0; i < a.length; i++) {
-                if (a[i] == null) {
-                    nNull++;
-                }
-                else {
-                    b[i-nNull] = a[i];
-                }
-            }
         }
-        
+
         public boolean hasNext() {
-            return current < count;
+            return current < b.length;
         }
-        
+
         public void remove() {
             throw new UnsupportedOperationException();
         }
-        
+
         public Item next() {
             if (!hasNext()) throw new NoSuchElementException();
-            return b[order[current++]];
+            int j = current + StdRandom.uniform(b.length - current);
+            Item item = b[j];
+            b[j] = b[current];
+            b[current++] = item;
+            return item;
         }
     }
-    
+
+    @SuppressWarnings("unchecked")
+    public Spliterator<Item> spliterator() {
+    // return a spliterator over a shuffled copy of the items; the shuffle is
+    // done up front so that any range of the copy is a random part, and the
+    // copy splits into halves of known size for parallel streams
+        Item[] b = (Item[]) new Object[count];
+        System.arraycopy(a, 0, b, 0, count);
+        StdRandom.shuffle(b);
+        return Spliterators.spliterator(b, 0, count, Spliterator.NONNULL);
+    }
+
     public static void main(String[] args) {
     // unit testing (optional)
         return;
     }
-}
\ No newline at end of file
+}
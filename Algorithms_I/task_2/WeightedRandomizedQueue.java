@@ -0,0 +1,286 @@
+import edu.princeton.cs.algs4.StdRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+    // RandomizedQueue where an item comes out with probability proportional
+    // to its weight. The items are a[0..count-1] with weights w[], as in
+    // RandomizedQueue, and a Fenwick tree over w[] finds the item where a
+    // random point of [0, total weight) falls in O(log n). enqueue() returns
+    // a handle that stays valid while the item is queued, for
+    // updateWeight(); items move on removals, so handles map to indices.
+    //
+    // Sampling a set that does not change is O(1): once there have been as
+    // many samples since the last change as there are items, sample() builds
+    // Vose's alias table and uses it until the next change.
+    private Item[] a;
+    private double[] w;
+    private double[] tree;
+    private int count;
+    private int[] handleOf;
+    private int[] indexOf;
+    private int[] freeHandles;
+    private int freeCount;
+    private int handleCount;
+    private double[] prob;
+    private int[] alias;
+    private int samples;
+
+    @SuppressWarnings("unchecked")
+    public WeightedRandomizedQueue() {
+    // construct an empty randomized queue
+        a = (Item[]) new Object[2];
+        w = new double[2];
+        tree = new double[3];
+        handleOf = new int[2];
+        indexOf = new int[2];
+        freeHandles = new int[2];
+    }
+
+    public boolean isEmpty() {
+    // is the randomized queue empty?
+        return count == 0;
+    }
+
+    public int size() {
+    // return the number of items on the randomized queue
+        return count;
+    }
+
+    public double totalWeight() {
+    // return the sum of the weights of the items
+        return prefix(count);
+    }
+
+    private void resize(int capacity) {
+    // move the items to arrays of the given capacity, a power of two, and
+    // rebuild the tree, which also drops the rounding errors of updates
+        assert capacity >= count;
+        a = Arrays.copyOf(a, capacity);
+        w = Arrays.copyOf(w, capacity);
+        handleOf = Arrays.copyOf(handleOf, capacity);
+        tree = new double[capacity + 1];
+        for (int i = 1; i <= count; i++) tree[i] = w[i - 1];
+        for (int i = 1; i <= capacity; i++) {
+            int j = i + (i & -i);
+            if (j <= capacity) tree[j] += tree[i];
+        }
+    }
+
+    private void add(int i, double delta) {
+    // add delta to the weight of item i in the tree
+        for (i++; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    private double prefix(int n) {
+    // sum of the weights of items 0..n-1
+        double sum = 0;
+        for (; n > 0; n -= n & -n) sum += tree[n];
+        return sum;
+    }
+
+    private int find(double r) {
+    // the item whose range of [0, total weight) holds r
+        int i = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (i + step < tree.length && tree[i + step] <= r) {
+                i += step;
+                r -= tree[i];
+            }
+        }
+        return Math.min(i, count - 1);
+    }
+
+    private static void checkWeight(double weight) {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight must be positive and finite");
+        }
+    }
+
+    private void changed() {
+    // the weights changed, the alias table no longer applies
+        prob = null;
+        samples = 0;
+    }
+
+    public int enqueue(Item item, double weight) {
+    // add the item with the given weight, return its handle
+        if (item == null) throw new IllegalArgumentException("null input");
+        checkWeight(weight);
+        if (count == a.length) resize(2*a.length);
+        int handle;
+        if (freeCount > 0) handle = freeHandles[--freeCount];
+        else {
+            if (handleCount == indexOf.length) {
+                indexOf = Arrays.copyOf(indexOf, 2*handleCount);
+                freeHandles = Arrays.copyOf(freeHandles, 2*handleCount);
+            }
+            handle = handleCount++;
+        }
+        a[count] = item;
+        w[count] = weight;
+        handleOf[count] = handle;
+        indexOf[handle] = count;
+        add(count, weight);
+        count++;
+        changed();
+        return handle;
+    }
+
+    private int index(int handle) {
+        if (handle < 0 || handle >= handleCount || indexOf[handle] < 0) {
+            throw new IllegalArgumentException("handle not in the queue");
+        }
+        return indexOf[handle];
+    }
+
+    public double weight(int handle) {
+    // return the weight of the item with the given handle
+        return w[index(handle)];
+    }
+
+    public void updateWeight(int handle, double weight) {
+    // change the weight of the item with the given handle
+        checkWeight(weight);
+        int i = index(handle);
+        add(i, weight - w[i]);
+        w[i] = weight;
+        changed();
+    }
+
+    private Item removeAt(int i) {
+    // remove item i, moving the last item into its place
+        Item item = a[i];
+        int last = count - 1;
+        indexOf[handleOf[i]] = -1;
+        freeHandles[freeCount++] = handleOf[i];
+        if (i != last) {
+            add(i, w[last] - w[i]);
+            a[i] = a[last];
+            w[i] = w[last];
+            handleOf[i] = handleOf[last];
+            indexOf[handleOf[i]] = i;
+        }
+        add(last, -w[last]);
+        a[last] = null;
+        w[last] = 0;
+        count--;
+        if (a.length > 2 && count == a.length/4) resize(a.length/2);
+        changed();
+        return item;
+    }
+
+    public Item remove(int handle) {
+    // remove and return the item with the given handle
+        return removeAt(index(handle));
+    }
+
+    public Item dequeue() {
+    // remove and return a random item, chosen in proportion to the weights
+        if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+        return removeAt(find(StdRandom.uniform() * prefix(count)));
+    }
+
+    public Item sample() {
+    // return a random item chosen in proportion to the weights (but do not
+    // remove it)
+        if (isEmpty()) throw new NoSuchElementException("Stack underflow");
+        if (prob != null) {
+            int i = StdRandom.uniform(count);
+            return a[StdRandom.uniform() < prob[i] ? i : alias[i]];
+        }
+        if (++samples >= count) buildAlias();
+        return a[find(StdRandom.uniform() * prefix(count))];
+    }
+
+    private void buildAlias() {
+    // Vose's alias method: column i of the table keeps item i with
+    // probability prob[i] and gives the rest to item alias[i]
+        prob = new double[count];
+        alias = new int[count];
+        double total = prefix(count);
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < count; i++) {
+            prob[i] = w[i] * count / total;
+            if (prob[i] < 1) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            alias[s] = l;
+            prob[l] -= 1 - prob[s];
+            if (prob[l] < 1) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        // what is left is 1 up to rounding
+        while (largeCount > 0) prob[large[--largeCount]] = 1;
+        while (smallCount > 0) prob[small[--smallCount]] = 1;
+    }
+
+    public Iterator<Item> iterator() {
+    // return an independent iterator over items in the order repeated
+    // dequeue() calls could give them: each next item is chosen in
+    // proportion to the weights of the items not returned yet
+        return new WeightedIterator();
+    }
+
+    private class WeightedIterator implements Iterator<Item> {
+        // copies of the items and of the tree; a returned item gets weight 0
+        private final Item[] b;
+        private final double[] t;
+        private final double[] weights;
+        private int current;
+
+        public WeightedIterator() {
+            b = Arrays.copyOf(a, count);
+            t = tree.clone();
+            weights = Arrays.copyOf(w, count);
+            current = 0;
+        }
+
+        public boolean hasNext() {
+            return current < b.length;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            double total = 0;
+            for (int n = b.length; n > 0; n -= n & -n) total += t[n];
+            double r = StdRandom.uniform() * total;
+            int i = 0;
+            for (int step = Integer.highestOneBit(t.length - 1); step > 0; step >>= 1) {
+                if (i + step < t.length && t[i + step] <= r) {
+                    i += step;
+                    r -= t[i];
+                }
+            }
+            // skip past items already returned when rounding lands on them
+            if (i >= b.length || weights[i] == 0) i = last(i);
+            current++;
+            for (int j = i + 1; j < t.length; j += j & -j) t[j] -= weights[i];
+            weights[i] = 0;
+            return b[i];
+        }
+
+        private int last(int i) {
+            // the nearest item not returned yet, looking down from i
+            for (int j = Math.min(i, b.length - 1); j >= 0; j--) if (weights[j] > 0) return j;
+            for (int j = i; j < b.length; j++) if (weights[j] > 0) return j;
+            throw new IllegalStateException();
+        }
+    }
+
+    public static void main(String[] args) {
+    // unit testing (optional)
+        return;
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+public class WorkStealingDeque<Item> implements Iterable<Item> {
+    // Chase-Lev deque: one owner thread adds and removes at the end, any
+    // number of thieves take items from the front, all without locks.
+    // The items are a[top], ..., a[bottom-1] (mod a.length). Only the owner
+    // writes bottom and a; top only grows, by CAS. The owner and a thief
+    // race for the last item through the same CAS on top.
+    private static final int MIN_CAPACITY = 32;
+    private volatile AtomicReferenceArray<Item> a;
+    private volatile long bottom;
+    private final AtomicLong top;
+
+    public WorkStealingDeque() {
+    // construct an empty deque
+        a = new AtomicReferenceArray<Item>(MIN_CAPACITY);
+        bottom = 0;
+        top = new AtomicLong();
+    }
+
+    public boolean isEmpty() {
+    // is the deque empty? (a snapshot when other threads are active)
+        return size() == 0;
+    }
+
+    public int size() {
+    // return the number of items on the deque (a snapshot as well)
+        long b = bottom;
+        long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> old, long t, long b) {
+    // copy the items to an array twice as large; thieves that still read
+    // the old one find the same items there, it is never written again
+        AtomicReferenceArray<Item> temp = new AtomicReferenceArray<Item>(2*old.length());
+        for (long i = t; i < b; i++) {
+            temp.set((int) i & (temp.length() - 1), old.get((int) i & (old.length() - 1)));
+        }
+        a = temp;
+        return temp;
+    }
+
+    public void addLast(Item item) {
+    // add the item to the end; owner thread only
+        if (item == null) throw new IllegalArgumentException("incorrect input");
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> array = a;
+        if (b - t >= array.length()) array = grow(array, t, b);
+        array.lazySet((int) b & (array.length() - 1), item);
+        // the volatile write publishes the item to the thieves
+        bottom = b + 1;
+    }
+
+    public Item removeLast() {
+    // remove and return the item from the end, null if there is none;
+    // owner thread only
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> array = a;
+        // volatile write then volatile read: a thief cannot take item b
+        // without this thread seeing its top
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int k = (int) b & (array.length() - 1);
+        Item item = array.get(k);
+        if (t == b) {
+            // the last item, a thief may be after it too
+            if (!top.compareAndSet(t, t + 1)) item = null;
+            bottom = b + 1;
+        }
+        else {
+            array.lazySet(k, null);
+        }
+        return item;
+    }
+
+    public Item stealFirst() {
+    // remove and return the item from the front, null if there is none;
+    // any thread
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) return null;
+            AtomicReferenceArray<Item> array = a;
+            Item item = array.get((int) t & (array.length() - 1));
+            // the slot is not cleared: once top moves on, the owner may
+            // already be reusing it
+            if (top.compareAndSet(t, t + 1)) return item;
+        }
+    }
+
+    public Iterator<Item> iterator() {
+    // return a weakly consistent iterator over items from front to end:
+    // it never throws ConcurrentModificationException and returns items
+    // that were on the deque at some moment while it ran
+        return new ArrayIterator();
+    }
+
+    private class ArrayIterator implements Iterator<Item> {
+        private final long end = bottom;
+        private long current = top.get();
+        private Item next = advance();
+
+        private Item advance() {
+            while (current < end) {
+                long t = top.get();
+                if (current < t) current = t;
+                if (current >= end) break;
+                AtomicReferenceArray<Item> array = a;
+                Item item = array.get((int) current++ & (array.length() - 1));
+                if (item != null) return item;
+            }
+            return null;
+        }
+
+        public boolean hasNext() { return next != null; }
+        public void remove() {
+            throw new UnsupportedOperationException("Unsupported method");
+        }
+        public Item next() {
+            if (next == null) {
+                throw new NoSuchElementException("No more items to return");
+            }
+            Item item = next;
+            next = advance();
+            return item;
+        }
+    }
+
+    public static void main(String[] args) {
+        // unit testing (optional)
+        return;
+    }
+}
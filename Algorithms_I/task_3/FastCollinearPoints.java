@@ -10,53 +10,34 @@ public class FastCollinearPoints {
     
     public FastCollinearPoints(Point[] points) {
     // finds all line segments containing 4 or more points
-        int k = 2;
+        if (points == null) throw new IllegalArgumentException("incorrect");
         n = 0;
         ls = new ArrayList<LineSegment>();
-        LineSegment l;
-        Point minp, maxp;
-        if (points == null) throw new IllegalArgumentException("incorrect");
-        Point[] cp = points.clone();
-        for (int i = 0; i < points.length; i++) {
-            minp = points[i];
-            maxp = points[i];
-            k = 2;
-            Arrays.sort(cp, points[i].slopeOrder());
-            for (int j = 1; j < points.length; j++) {
-                if (points[i].slopeTo(cp[j]) == points[i].slopeTo(cp[j-1])) {
-                    k++;
-                    if (minp.compareTo(cp[j]) == -1) minp = cp[j];
-                    if (maxp.compareTo(cp[j]) == 1) maxp = cp[j];
-                    if (minp.compareTo(cp[j-1]) == -1) minp = cp[j-1];
-                    if (maxp.compareTo(cp[j-1]) == 1) maxp = cp[j-1];
-                }
-                else {
-                    if (k > 3) {
-                        l = new LineSegment(minp, maxp);
-                        for (int t = 0; t < ls.size(); t++) {
-                            if (l.toString().equals(ls.get(t).toString())) k = -1;
-                        }
-                        if (k > 0) {
-                            ls.add(l);
-                            n++;
-                        }
-                    }
-                    minp = points[i];
-                    maxp = points[i];
-                    if (minp.compareTo(cp[j]) == -1) minp = cp[j];
-                    if (maxp.compareTo(cp[j]) == 1) maxp = cp[j];
-                    k = 2;
-                }
-            }
-            if (k > 3) {
-                l = new LineSegment(minp, maxp);
-                for (int t = 0; t < ls.size(); t++) {
-                    if (l.toString().equals(ls.get(t).toString())) k = -1;
-                }
-                if (k > 0) {
-                    ls.add(l);
+        // points in natural order; the stable sort by slope below keeps that
+        // order inside every run of equal slopes, so a run starts at its
+        // smallest point and ends at its largest
+        Point[] sorted = points.clone();
+        Arrays.sort(sorted);
+        Point[] cp = new Point[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            Point origin = sorted[i];
+            System.arraycopy(sorted, 0, cp, 0, sorted.length);
+            Arrays.sort(cp, origin.slopeOrder());
+            // cp[0] is the origin itself, with slope -infinity
+            int j = 1;
+            while (j < cp.length) {
+                double slope = origin.slopeTo(cp[j]);
+                int k = j + 1;
+                while (k < cp.length && origin.slopeTo(cp[k]) == slope) k++;
+                // cp[j..k-1] and the origin are collinear; every segment is
+                // found once from each of its points, keep it only from its
+                // smallest one; like the original search, segments go from
+                // the largest point to the smallest
+                if (k - j >= 3 && origin.compareTo(cp[j]) < 0) {
+                    ls.add(new LineSegment(cp[k-1], origin));
                     n++;
                 }
+                j = k;
             }
         }
     }
@@ -5,7 +5,7 @@ import java.util.Arrays;
 public class Board {
     private final int n;
     private final int[] body;
-    private final int m = 0;
+    private int m;
     
     public Board(int[][] blocks) {
         // construct a board from an n-by-n array of blocks